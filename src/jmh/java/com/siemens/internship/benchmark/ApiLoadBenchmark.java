@@ -0,0 +1,63 @@
+package com.siemens.internship.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the items API with 64 concurrent clients. Each benchmark method runs in its own fork;
+ * after every iteration the number of live Tomcat request threads is printed, which is the thread cost
+ * of serving that load. Meant for the smaller seed sizes, e.g. -p rows=10000.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(64)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiLoadBenchmark {
+    private HttpClient client;
+    private String baseUrl;
+    private int rows;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededServer server) {
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = server.baseUrl();
+        rows = server.rows;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printServerThreads() {
+        long requestThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("http-nio-") && thread.getName().contains("-exec-"))
+                .count();
+        System.out.printf("%nserver threads: tomcat=%d%n", requestThreads);
+    }
+
+    @Benchmark
+    public int mvcGetById() throws Exception {
+        return get("/api/items/" + randomId(), "application/json");
+    }
+
+    @Benchmark
+    public int mvcStreamAll() throws Exception {
+        return get("/api/items/stream", "application/x-ndjson");
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    private int get(String path, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Accept", accept).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,50 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.service.ItemIngestBuffer;
+import com.siemens.internship.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Create throughput under a burst of concurrent creates: one ItemService.save transaction per item, against
+ * ItemIngestBuffer group commits. Each benchmark thread is one client waiting for its create to commit, as
+ * POST /api/items does without Prefer: respond-async. Run it with -p rows=10000; the seed size doesn't matter here.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+public class IngestBenchmark {
+    private static final ItemDTO ITEM = ItemDTO.builder()
+            .name("Ingested")
+            .description("Benchmark create")
+            .status("NEW")
+            .email("ingest@example.com")
+            .build();
+
+    @State(Scope.Benchmark)
+    public static class WriteBehindDatabase extends SeededDatabase {
+        @Override
+        protected SpringApplicationBuilder application() {
+            return super.application().properties("items.ingest.write-behind=true");
+        }
+    }
+
+    @Benchmark
+    public ItemDTO savePerRequest(SeededDatabase database) {
+        return database.bean(ItemService.class).save(ITEM);
+    }
+
+    @Benchmark
+    public ItemDTO groupCommit(WriteBehindDatabase database) {
+        ItemIngestBuffer buffer = database.bean(ItemIngestBuffer.class);
+        ItemIngestBuffer.PendingItem pending = buffer.submit(ITEM).orElseThrow();
+        buffer.awaitCommit(pending);
+        return pending.toDTO().getItem();
+    }
+}
@@ -0,0 +1,67 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemSearchPageDTO;
+import com.siemens.internship.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side search against the old client-side approach of downloading everything and filtering.
+ * Setup prints the H2 EXPLAIN plan of each search and fails the trial if it does not use its index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemSearchBenchmark {
+    private static final Map<String, String> EXPECTED_PLANS = Map.of(
+            "SELECT id FROM item WHERE status = 'DONE' ORDER BY id LIMIT 100", "IDX_ITEM_STATUS",
+            "SELECT id FROM item WHERE email = 'item4242@example.com'", "IDX_ITEM_EMAIL",
+            "SELECT id FROM item WHERE name LIKE 'Item 4242%' ORDER BY name, id LIMIT 100", "IDX_ITEM_NAME");
+
+    private ItemService itemService;
+    private String email;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase database) {
+        itemService = database.bean(ItemService.class);
+        email = "item" + Math.min(4242, database.rows) + "@example.com";
+
+        JdbcTemplate jdbc = database.bean(JdbcTemplate.class);
+        EXPECTED_PLANS.forEach((sql, index) -> {
+            String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class);
+            System.out.println(plan);
+            if (!plan.toUpperCase().contains(index)) {
+                throw new IllegalStateException("Expected " + index + " in plan of: " + sql);
+            }
+        });
+    }
+
+    @Benchmark
+    public ItemSearchPageDTO searchByEmail() {
+        return itemService.search(null, email, null, 0, 100, "id", false);
+    }
+
+    @Benchmark
+    public ItemSearchPageDTO searchByStatus() {
+        return itemService.search("DONE", null, null, 0, 100, "id", false);
+    }
+
+    @Benchmark
+    public ItemSearchPageDTO searchByNamePrefix() {
+        return itemService.search(null, null, "Item 4242", 0, 100, "name", false);
+    }
+
+    // What clients did before the search endpoint existed
+    @Benchmark
+    public List<ItemDTO> findAllThenFilterByEmail() {
+        return itemService.findAll().stream().filter(item -> email.equals(item.getEmail())).toList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.AdaptiveChunkQueue;
+import com.siemens.internship.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of ItemService against a seeded H2. Throughput and SampleTime (latency percentiles)
+ * are both reported; run through the benchmarks profile, which adds the GC profiler for allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemServiceBenchmark {
+    private ItemService itemService;
+    private List<Long> ids;
+    private Item item;
+    private ItemDTO itemDTO;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase database) {
+        itemService = database.bean(ItemService.class);
+        ids = database.bean(ItemRepository.class).findAllIds();
+        item = new Item(1L, "Item 1", "Benchmark item", "NEW", "item1@example.com");
+        itemDTO = itemService.convertToDTO(item);
+    }
+
+    @Benchmark
+    public ItemDTO convertToDTO() {
+        return itemService.convertToDTO(item);
+    }
+
+    @Benchmark
+    public Item convertToEntity() {
+        return itemService.convertToEntity(itemDTO);
+    }
+
+    // Claims every chunk of a fresh queue, as the workers of a run do; latency feedback is left out
+    @Benchmark
+    public int drainChunkQueue() {
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(ids, 10, TimeUnit.MILLISECONDS.toNanos(500));
+        int chunks = 0;
+        while (!queue.nextChunk().isEmpty()) {
+            chunks++;
+        }
+        return chunks;
+    }
+
+    @Benchmark
+    public List<ItemDTO> findAll() {
+        return itemService.findAll();
+    }
+
+    // Full run over every seeded row; without the reset every run after the first would be incremental and empty
+    @Benchmark
+    public List<ItemDTO> processItemsAsync() {
+        itemService.resetProcessingWatermark();
+        return itemService.processItemsAsync().join();
+    }
+}
@@ -0,0 +1,145 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.AdaptiveChunkQueue;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where a processing run gets its IDs from: the boxed List<Long> of findAllIds against the keyset pages
+ * the run now reads. `firstChunk` is the time until a worker can start; `drain` hands out every chunk.
+ * gc.alloc.rate.norm from the GC profiler of the benchmarks profile compares bytes allocated per run.
+ *
+ * The `modifiedSince` pair is an incremental run after one row in a hundred changed: (lastModified, id)
+ * keyset pages on idx_item_last_modified_id against the old pages in id order filtered on lastModified.
+ * Setup prints the H2 EXPLAIN plan of the incremental page and fails the trial if it does not use the index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessingIdSourceBenchmark {
+    // ItemRepository.findModifiedAfter as H2 runs it
+    private static final String MODIFIED_PAGE = "SELECT id FROM item WHERE last_modified >= CURRENT_TIMESTAMP "
+            + "AND (last_modified > CURRENT_TIMESTAMP OR id > 42) AND id <= 1000000 ORDER BY last_modified, id LIMIT 10000";
+    // What incremental runs used before, for comparison
+    private static final String MODIFIED_PAGE_BY_ID = "SELECT id FROM item WHERE last_modified > ? "
+            + "AND id > ? AND id <= ? ORDER BY id LIMIT ?";
+
+    private ItemRepository repository;
+    private JdbcTemplate jdbc;
+    private long total;
+    private long upTo;
+    private Instant since;
+    private long modified;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase database) {
+        repository = database.bean(ItemRepository.class);
+        jdbc = database.bean(JdbcTemplate.class);
+        upTo = repository.findMaxId().orElse(0L);
+        total = repository.countIdsUpTo(upTo);
+
+        // One row in a hundred changed after the watermark, each at its own instant like entity writes
+        since = Instant.now().plusSeconds(1);
+        jdbc.update("UPDATE item SET last_modified = DATEADD(MICROSECOND, id, CAST(? AS TIMESTAMP(6) WITH TIME ZONE)) WHERE MOD(id, 100) = 7", Timestamp.from(since));
+        jdbc.execute("ANALYZE");
+        modified = repository.countIdsModifiedSince(since, upTo);
+
+        String plan = jdbc.queryForObject("EXPLAIN " + MODIFIED_PAGE, String.class);
+        System.out.println(plan);
+        if (!plan.toUpperCase().contains("IDX_ITEM_LAST_MODIFIED_ID")) {
+            throw new IllegalStateException("Expected IDX_ITEM_LAST_MODIFIED_ID in plan of: " + MODIFIED_PAGE);
+        }
+    }
+
+    private AdaptiveChunkQueue listQueue() {
+        return new AdaptiveChunkQueue(repository.findAllIds(), 10, TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    private AdaptiveChunkQueue keysetQueue() {
+        long[] afterId = {Long.MIN_VALUE};
+        AdaptiveChunkQueue.IdPages pages = maxSize -> {
+            long[] ids = repository.findIdsAfter(afterId[0], upTo, Limit.of(maxSize)).stream().mapToLong(Long::longValue).toArray();
+            if (ids.length > 0) {
+                afterId[0] = ids[ids.length - 1];
+            }
+            return ids;
+        };
+        return new AdaptiveChunkQueue(pages, total, 10, TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    private AdaptiveChunkQueue modifiedSinceQueue() {
+        Instant[] afterModified = {since};
+        long[] afterId = {Long.MAX_VALUE};
+        AdaptiveChunkQueue.IdPages pages = maxSize -> {
+            List<ItemRepository.ModifiedKey> page = repository.findModifiedAfter(afterModified[0], afterId[0], upTo, Limit.of(maxSize));
+            long[] ids = page.stream().mapToLong(ItemRepository.ModifiedKey::getId).toArray();
+            if (ids.length > 0) {
+                afterModified[0] = page.get(ids.length - 1).getLastModified();
+                afterId[0] = ids[ids.length - 1];
+            }
+            return ids;
+        };
+        return new AdaptiveChunkQueue(pages, modified, 10, TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    private AdaptiveChunkQueue modifiedSinceByIdQueue() {
+        long[] afterId = {Long.MIN_VALUE};
+        AdaptiveChunkQueue.IdPages pages = maxSize -> {
+            long[] ids = jdbc.queryForList(MODIFIED_PAGE_BY_ID, Long.class, Timestamp.from(since), afterId[0], upTo, maxSize)
+                    .stream().mapToLong(Long::longValue).toArray();
+            if (ids.length > 0) {
+                afterId[0] = ids[ids.length - 1];
+            }
+            return ids;
+        };
+        return new AdaptiveChunkQueue(pages, modified, 10, TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    private static int drain(AdaptiveChunkQueue queue) {
+        int chunks = 0;
+        while (!queue.nextChunk().isEmpty()) {
+            chunks++;
+        }
+        return chunks;
+    }
+
+    @Benchmark
+    public List<Long> firstChunkFromList() {
+        return listQueue().nextChunk();
+    }
+
+    @Benchmark
+    public List<Long> firstChunkFromKeysetPages() {
+        return keysetQueue().nextChunk();
+    }
+
+    @Benchmark
+    public int drainList() {
+        return drain(listQueue());
+    }
+
+    @Benchmark
+    public int drainKeysetPages() {
+        return drain(keysetQueue());
+    }
+
+    @Benchmark
+    public int drainModifiedSince() {
+        return drain(modifiedSinceQueue());
+    }
+
+    @Benchmark
+    public int drainModifiedSinceById() {
+        return drain(modifiedSinceByIdQueue());
+    }
+}
@@ -0,0 +1,56 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemRepeatableDTO;
+import com.siemens.internship.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk insert throughput of saveItemRepeatable. The auxiliary "rows" counter is reported
+ * next to ops/s, so the result reads directly as inserted rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepeatableInsertBenchmark {
+    @Param({"1000", "10000"})
+    public int copies;
+
+    private ItemService itemService;
+    private ItemRepeatableDTO request;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class InsertedRows {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase database) {
+        itemService = database.bean(ItemService.class);
+        ItemDTO item = ItemDTO.builder()
+                .name("Copy")
+                .description("Benchmark copy")
+                .status("NEW")
+                .email("copy@example.com")
+                .build();
+        request = new ItemRepeatableDTO(item, copies);
+    }
+
+    @Benchmark
+    public ItemDTO saveItemRepeatable(InsertedRows counter) {
+        ItemDTO saved = itemService.saveItemRepeatable(request);
+        counter.rows += copies;
+        return saved;
+    }
+}
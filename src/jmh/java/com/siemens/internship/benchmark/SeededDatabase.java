@@ -0,0 +1,59 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.InternshipApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Boots the application without the web layer against a private in-memory H2 and seeds it
+ * with `rows` items through one set-based INSERT, so seeding 1M rows takes seconds. ANALYZE then
+ * refreshes the column selectivity the H2 planner uses to choose indexes.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    public ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = application()
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "items.processing.simulated-delay-ms=0",
+                        "logging.level.root=WARN")
+                .run();
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        // One row in a hundred is DONE, so status searches have a selective value to look up
+        jdbc.update("INSERT INTO item (id, name, description, status, email, last_modified) "
+                + "SELECT x, CONCAT('Item ', x), 'Benchmark item', CASE WHEN MOD(x, 100) = 0 THEN 'DONE' ELSE 'NEW' END, "
+                + "CONCAT('item', x, '@example.com'), CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, ?)", rows);
+        jdbc.execute("ANALYZE");
+        // Move the pooled sequence past the seeded IDs so inserts made by the benchmarks don't collide
+        jdbc.execute("ALTER SEQUENCE item_seq RESTART WITH " + (rows + 100));
+    }
+
+    protected SpringApplicationBuilder application() {
+        return new SpringApplicationBuilder(InternshipApplication.class).web(WebApplicationType.NONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
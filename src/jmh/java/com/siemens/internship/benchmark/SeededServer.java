@@ -0,0 +1,24 @@
+package com.siemens.internship.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+/**
+ * SeededDatabase with the embedded Tomcat started on a random port, for benchmarks that go
+ * through HTTP.
+ */
+@State(Scope.Benchmark)
+public class SeededServer extends SeededDatabase {
+
+    @Override
+    protected SpringApplicationBuilder application() {
+        return super.application().web(WebApplicationType.SERVLET).properties("server.port=0");
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+}
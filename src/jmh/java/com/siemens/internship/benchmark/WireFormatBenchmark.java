@@ -0,0 +1,71 @@
+package com.siemens.internship.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siemens.internship.config.WireFormatConfig;
+import com.siemens.internship.model.DTO.ItemDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization cost of an item list as the processing endpoint returns it (processedBy set to one of
+ * ten worker names), in JSON and Smile, with and without gzip. Setup prints the payload size of each
+ * encoding. Needs no database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+    @Param({"10000"})
+    public int listSize;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper smile = new ObjectMapper(WireFormatConfig.smileFactory());
+    private List<ItemDTO> items;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        items = new ArrayList<>(listSize);
+        for (long i = 0; i < listSize; i++) {
+            items.add(new ItemDTO(i, "Item " + i, "Benchmark item", "PROCESSED", "item-processor-" + (i % 10), "item" + i + "@example.com"));
+        }
+        System.out.printf("%njson=%d B, smile=%d B, json+gzip=%d B, smile+gzip=%d B%n",
+                json(), smile(), jsonGzip(), smileGzip());
+    }
+
+    @Benchmark
+    public int json() throws IOException {
+        return json.writeValueAsBytes(items).length;
+    }
+
+    @Benchmark
+    public int smile() throws IOException {
+        return smile.writeValueAsBytes(items).length;
+    }
+
+    @Benchmark
+    public int jsonGzip() throws IOException {
+        return gzip(json);
+    }
+
+    @Benchmark
+    public int smileGzip() throws IOException {
+        return gzip(smile);
+    }
+
+    private int gzip(ObjectMapper mapper) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            mapper.writeValue(out, items);
+        }
+        return bytes.size();
+    }
+}
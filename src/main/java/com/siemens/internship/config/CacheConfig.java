@@ -0,0 +1,15 @@
+package com.siemens.internship.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache names used by the item read paths. The caches themselves (Caffeine, size/TTL, stats)
+ * are configured through spring.cache.* in application.properties, so Actuator can report
+ * hit/miss counts under the cache.gets metric.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String ITEMS_CACHE = "items";
+}
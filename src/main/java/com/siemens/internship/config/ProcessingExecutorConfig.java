@@ -0,0 +1,83 @@
+package com.siemens.internship.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableAsync
+public class ProcessingExecutorConfig {
+    // Same switch Spring Boot uses for Tomcat, so request threads and processing move to virtual threads together
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${items.processing.threads:10}")
+    private int threads;
+
+    // How long shutdown waits for chunks and items in progress before interrupting them
+    @Value("${items.processing.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMillis;
+
+    private ExecutorService processingExecutor;
+    private ExecutorService itemTimeoutExecutor;
+
+    /**
+     * Executor for processing runs and @Async service methods. A run's workers keep taking chunks until the
+     * run is done, so ItemService.stopProcessing runs first and makes them stop after the chunk in hand.
+     * Shutdown then waits for those chunks, and interrupts them past items.processing.shutdown-timeout-ms.
+     * The fixed pool reports executor.active and executor.queued; both variants report task timings.
+     */
+    @Bean(name = "processingExecutor", destroyMethod = "")
+    public ExecutorService processingExecutor(MeterRegistry meterRegistry) {
+        ExecutorService executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("item-processor-", 0).factory())
+                : Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("item-processor-", 0).factory());
+        processingExecutor = ExecutorServiceMetrics.monitor(meterRegistry, executor, "processingExecutor");
+        return processingExecutor;
+    }
+
+    /**
+     * Runs each item of a processing run when items.processing.item-timeout-ms is set, so a worker can give up
+     * on a stuck item. Virtual threads make that extra hop cheap.
+     */
+    @Bean(name = "itemTimeoutExecutor", destroyMethod = "")
+    public ExecutorService itemTimeoutExecutor() {
+        itemTimeoutExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("item-timeout-", 0).factory());
+        return itemTimeoutExecutor;
+    }
+
+    // Runs after every bean using the executors has been destroyed, since they all depend on this configuration
+    @PreDestroy
+    void shutDownExecutors() {
+        shutdown(processingExecutor, shutdownTimeoutMillis);
+        shutdown(itemTimeoutExecutor, shutdownTimeoutMillis);
+    }
+
+    /**
+     * Waits up to timeoutMillis for running tasks, then interrupts them with shutdownNow. An interrupted
+     * processing worker dead-letters the rest of its chunk and takes no more, so the run fails promptly.
+     */
+    public static void shutdown(ExecutorService executor, long timeoutMillis) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+                executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
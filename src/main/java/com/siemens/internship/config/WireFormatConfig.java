@@ -0,0 +1,47 @@
+package com.siemens.internship.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Adds Smile (binary JSON) to content negotiation: clients sending Accept: application/x-jackson-smile
+ * get every endpoint's body in Smile, everyone else keeps JSON. Field names are written once per
+ * response and then back-referenced, and so are repeated short values such as status and processedBy.
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public static SmileFactory smileFactory() {
+        return SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+    }
+
+    /*
+     * Spring MVC already registers a default Smile converter once jackson-dataformat-smile is on the classpath,
+     * without shared string values. It comes first, so it is replaced in place rather than added after.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Same modules and spring.jackson.* settings as the JSON mapper
+        MappingJackson2SmileHttpMessageConverter smile = new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilder.createXmlMapper(false).factory(smileFactory()).build());
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2SmileHttpMessageConverter) {
+                converters.set(i, smile);
+                return;
+            }
+        }
+        converters.add(smile);
+    }
+}
@@ -0,0 +1,89 @@
+package com.siemens.internship.controller;
+
+import com.siemens.internship.model.DTO.ItemChangeDTO;
+import com.siemens.internship.service.ItemChangeFeed;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * One subscriber of GET /api/items/changes. A virtual thread reads the change feed from the client's
+ * position and writes each change to the emitter, so a slow client only holds up its own thread.
+ * A client that falls a whole ring behind gets a RESYNC change and is disconnected. Every stream holds one
+ * of the feed's subscriber slots until its thread ends.
+ */
+final class ItemChangeStream implements Runnable {
+    // Changes written per feed read, and how long an idle stream waits before sending a heartbeat
+    private static final int BATCH_SIZE = 500;
+    private static final Duration HEARTBEAT = Duration.ofSeconds(15);
+
+    interface Writer {
+        void write(ItemChangeDTO change) throws IOException;
+
+        // Lets a broken connection fail while nothing is published
+        void heartbeat() throws IOException;
+    }
+
+    private final ItemChangeFeed feed;
+    private final ResponseBodyEmitter emitter;
+    private final Writer writer;
+    private String position;
+    private volatile Thread thread;
+
+    private ItemChangeStream(ItemChangeFeed feed, String position, ResponseBodyEmitter emitter, Writer writer) {
+        this.feed = feed;
+        this.position = position;
+        this.emitter = emitter;
+        this.writer = writer;
+    }
+
+    // False, with nothing started, when the feed already has its maximum number of subscribers
+    static boolean start(ItemChangeFeed feed, String position, ResponseBodyEmitter emitter, Writer writer) {
+        if (!feed.subscribe()) {
+            return false;
+        }
+        ItemChangeStream stream = new ItemChangeStream(feed, position, emitter, writer);
+        // Timeout, client gone or error: stop waiting on the feed
+        emitter.onCompletion(stream::stop);
+        emitter.onTimeout(stream::stop);
+        emitter.onError(e -> stream.stop());
+        stream.thread = Thread.ofVirtual().name("item-changes").unstarted(stream);
+        stream.thread.start();
+        return true;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ItemChangeFeed.Batch batch = feed.read(position, BATCH_SIZE, HEARTBEAT);
+                if (batch.getChanges().isEmpty()) {
+                    writer.heartbeat();
+                    continue;
+                }
+                for (ItemChangeDTO change : batch.getChanges()) {
+                    writer.write(change);
+                }
+                position = batch.getPosition();
+                if (batch.isResync()) {
+                    emitter.complete();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // The client disconnected or the emitter already completed; nothing left to write to
+        } finally {
+            feed.unsubscribe();
+        }
+    }
+
+    private void stop() {
+        Thread running = thread;
+        if (running != null && running != Thread.currentThread()) {
+            running.interrupt();
+        }
+    }
+}
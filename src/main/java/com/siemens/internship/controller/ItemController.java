@@ -1,38 +1,189 @@
 
 package com.siemens.internship.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemBulkUpdateDTO;
+import com.siemens.internship.model.DTO.ItemChangeDTO;
 import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemIngestDTO;
+import com.siemens.internship.model.DTO.ItemOperationResultDTO;
+import com.siemens.internship.model.DTO.ItemPageDTO;
 import com.siemens.internship.model.DTO.ItemRepeatableDTO;
+import com.siemens.internship.model.DTO.ItemSearchPageDTO;
+import com.siemens.internship.model.DTO.ProcessingJobDTO;
+import com.siemens.internship.service.ItemChangeFeed;
+import com.siemens.internship.service.ItemIngestBuffer;
 import com.siemens.internship.service.ItemService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/items")
 public class ItemController {
+    // Results of GET /process left out past items.processing.max-retained-results
+    public static final String DROPPED_RESULTS_HEADER = "X-Dropped-Results";
 
     @Autowired
     private ItemService itemService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ItemChangeFeed changeFeed;
+    @Autowired
+    private ItemIngestBuffer ingestBuffer;
+
+    // Change streams are closed after this long; EventSource clients reconnect with Last-Event-ID on their own
+    @Value("${items.changes.stream-timeout-ms:1800000}")
+    private long changeStreamTimeoutMillis = 1_800_000;
 
     @GetMapping
-    public ResponseEntity<List<ItemDTO>> getAllItems() {
-        return new ResponseEntity<>(itemService.findAll(), HttpStatus.OK);
+    public ResponseEntity<List<ItemDTO>> getAllItems(WebRequest request) {
+        return conditional(request, itemService::findAll);
+    }
+
+    // The list ETag without the list: a cheap "has anything changed" check for pollers
+    @RequestMapping(method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headAllItems(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return ResponseEntity.ok().eTag(ItemETags.forRepresentation(itemService.itemsETag(), accept)).varyBy(ItemETags.VARY).build();
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<ItemPageDTO> getItemsPage(@RequestParam(required = false) Long afterId, @RequestParam int limit, WebRequest request) {
+        return conditional(request, () -> itemService.findPage(afterId, limit));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ItemSearchPageDTO> searchItems(@RequestParam(required = false) String status,
+                                                         @RequestParam(required = false) String email,
+                                                         @RequestParam(required = false) String name,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "100") int size,
+                                                         @RequestParam(defaultValue = "id") String sort,
+                                                         @RequestParam(defaultValue = "asc") String direction,
+                                                         WebRequest request) {
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        if (!ItemService.SEARCH_SORT_FIELDS.contains(sort) || (!descending && !"asc".equalsIgnoreCase(direction))) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return conditional(request, () -> itemService.search(status, email, name, page, size, sort, descending));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllItems() {
+        StreamingResponseBody body = out -> itemService.streamAll(item -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(item));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Changes after from (or Last-Event-ID, which a reconnecting EventSource sends); without either, only new ones
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(@RequestParam(required = false) String from,
+                                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter(changeStreamTimeoutMillis);
+        boolean started = ItemChangeStream.start(changeFeed, lastEventId != null ? lastEventId : startPosition(from), emitter, new ItemChangeStream.Writer() {
+            @Override
+            public void write(ItemChangeDTO change) throws IOException {
+                emitter.send(SseEmitter.event().id(change.getPosition()).data(change, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void heartbeat() throws IOException {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        });
+        return started ? ResponseEntity.ok(emitter) : tooManySubscribers();
+    }
+
+    // The same changes as one JSON object per line; idle streams get an empty line as heartbeat
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamChangesAsNdjson(@RequestParam(required = false) String from) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(changeStreamTimeoutMillis);
+        boolean started = ItemChangeStream.start(changeFeed, startPosition(from), emitter, new ItemChangeStream.Writer() {
+            @Override
+            public void write(ItemChangeDTO change) throws IOException {
+                emitter.send(objectMapper.writeValueAsString(change) + "\n", MediaType.APPLICATION_NDJSON);
+            }
+
+            @Override
+            public void heartbeat() throws IOException {
+                emitter.send("\n", MediaType.APPLICATION_NDJSON);
+            }
+        });
+        return started ? ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter) : tooManySubscribers();
+    }
+
+    // items.changes.max-subscribers streams are open; a slot frees up as soon as one of them ends
+    private static <T> ResponseEntity<T> tooManySubscribers() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
     }
 
+    private String startPosition(String from) {
+        return from != null ? ItemETags.withoutRepresentation(from) : changeFeed.position();
+    }
+
+    /*
+     * In write-behind mode the item is queued for the next group commit. The response waits for that commit
+     * (201 with the item), unless the client sent Prefer: respond-async or the commit is slow: then it is 202
+     * with a pending ID to look up. A full queue answers 429, like a full job registry does.
+     */
     @PostMapping
-    public ResponseEntity<ItemDTO> createItem(@Valid @RequestBody ItemDTO item, BindingResult result) {
+    public ResponseEntity<?> createItem(@Valid @RequestBody ItemDTO item, BindingResult result,
+                                        @RequestHeader(value = "Prefer", required = false) String prefer) {
         if (result.hasErrors()) {
             return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
         }
-        return new ResponseEntity<>(itemService.save(item), HttpStatus.CREATED);
+        if (!ingestBuffer.isEnabled()) {
+            return new ResponseEntity<>(itemService.save(item), HttpStatus.CREATED);
+        }
+        Optional<ItemIngestBuffer.PendingItem> queued = ingestBuffer.submit(item);
+        if (queued.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        ItemIngestBuffer.PendingItem pending = queued.get();
+        boolean respondAsync = prefer != null && prefer.contains("respond-async");
+        if (!respondAsync && ingestBuffer.awaitCommit(pending)) {
+            ItemIngestDTO outcome = pending.toDTO();
+            return outcome.getStatus() == ItemIngestDTO.Status.COMMITTED
+                    ? new ResponseEntity<>(outcome.getItem(), HttpStatus.CREATED)
+                    : new ResponseEntity<>(outcome, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/items/pending/" + pending.getId()))
+                .body(pending.toDTO());
+    }
+
+    @GetMapping("/pending/{pendingId}")
+    public ResponseEntity<ItemIngestDTO> getPendingItem(@PathVariable String pendingId) {
+        return ingestBuffer.find(pendingId)
+                .map(pending -> new ResponseEntity<>(pending.toDTO(), HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @PostMapping("/repeatable")
@@ -45,35 +196,102 @@ public class ItemController {
     }
 
 
+    // findById is cached, and Spring turns a matching If-None-Match into a 304 from the ETag set here
     @GetMapping("/{id}")
-    public ResponseEntity<ItemDTO> getItemById(@PathVariable Long id) {
+    public ResponseEntity<ItemDTO> getItemById(@PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         return itemService.findById(id)
-                .map(item -> new ResponseEntity<>(item, HttpStatus.OK))
+                .map(item -> ResponseEntity.ok().eTag(ItemETags.forRepresentation(ItemETags.of(item), accept)).varyBy(ItemETags.VARY).body(item))
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
+    // With If-Match the update only happens while the item still has that version (412 otherwise)
     @PutMapping("/{id}")
-    public ResponseEntity<ItemDTO> updateItem(@PathVariable Long id, @Valid @RequestBody Item item,BindingResult result) {
+    public ResponseEntity<ItemDTO> updateItem(@PathVariable Long id, @Valid @RequestBody Item item, BindingResult result,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         if(result.hasErrors()){
             return new ResponseEntity<>(null,HttpStatus.BAD_REQUEST);
         }
-        return itemService.updateItem(id, item)
-                .map(value-> new ResponseEntity<>(value,HttpStatus.OK))
-                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
-
+        Long expectedVersion;
+        try {
+            expectedVersion = ItemETags.expectedVersion(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return itemService.updateItem(id, item, expectedVersion)
+                    .map(value -> ResponseEntity.ok().eTag(ItemETags.forRepresentation(ItemETags.of(value), accept)).varyBy(ItemETags.VARY).body(value))
+                    .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(expectedVersion != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+        }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<ItemDTO> deleteItem(@PathVariable Long id) {
-        if(!itemService.existsById(id)){
+        if(!itemService.deleteItem(id)){
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        itemService.deleteById(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @PatchMapping
+    public ResponseEntity<List<ItemOperationResultDTO>> updateItems(@Valid @RequestBody ItemBulkUpdateDTO request, BindingResult result) {
+        if (result.hasErrors() || request.getItems() == null) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(itemService.updateItems(request.getItems()), HttpStatus.OK);
+        } catch (OptimisticLockingFailureException e) {
+            // Another writer changed one of the items between the read and the flush; nothing was applied
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    @DeleteMapping
+    public ResponseEntity<List<ItemOperationResultDTO>> deleteItems(@RequestBody List<Long> ids) {
+        return new ResponseEntity<>(itemService.deleteItems(ids), HttpStatus.OK);
+    }
+
+    // The tag is taken before the query, so If-None-Match on an unchanged table never reaches the database
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> body) {
+        String eTag = ItemETags.forRepresentation(itemService.itemsETag(), request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(ItemETags.VARY).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).varyBy(ItemETags.VARY).body(body.get());
+    }
+
+    /*
+     * Returning the future releases the servlet thread; the response is written when the run completes.
+     * Results past items.processing.max-retained-results are left out and counted in X-Dropped-Results.
+     */
     @GetMapping("/process")
-    public ResponseEntity<List<ItemDTO>> processItems() throws ExecutionException, InterruptedException {
-        return new ResponseEntity<>(itemService.processItemsAsync().get(), HttpStatus.OK);
+    public CompletableFuture<ResponseEntity<List<ItemDTO>>> processItems() {
+        return itemService.processItemsJobAsync().thenApply(job -> {
+            List<ItemDTO> items = job.getResults();
+            int dropped = job.getDroppedResults();
+            job.close();
+            return ResponseEntity.ok()
+                    .header(DROPPED_RESULTS_HEADER, String.valueOf(dropped))
+                    .body(items);
+        });
+    }
+
+    @PostMapping("/process")
+    public ResponseEntity<ProcessingJobDTO> submitProcessing() {
+        return itemService.submitProcessingJob()
+                .map(job -> new ResponseEntity<>(job, HttpStatus.ACCEPTED))
+                .orElse(new ResponseEntity<>(HttpStatus.TOO_MANY_REQUESTS));
+    }
+
+    @GetMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJobDTO> getProcessingJob(@PathVariable String jobId,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(defaultValue = "100") int size) {
+        return itemService.getProcessingJob(jobId, page, size)
+                .map(job -> new ResponseEntity<>(job, HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package com.siemens.internship.controller;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An item's ETag is its row version as a strong tag ("3"). Clients send it back in If-Match to make
+ * a PUT conditional on nobody having changed the item since they read it.
+ * <p>
+ * A strong tag promises identical bytes, so each representation gets its own: JSON keeps the plain tag and
+ * Smile appends SMILE_SUFFIX ("3-smile"). Tomcat turns the tag of a gzipped response into a weak one
+ * (W/"3") and adds Vary: accept-encoding itself. Responses carrying these tags send VARY as well.
+ */
+final class ItemETags {
+    static final String[] VARY = {HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING};
+    static final String SMILE_SUFFIX = "-smile";
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private ItemETags() {
+    }
+
+    // The tag for the representation the Accept header negotiates
+    static String forRepresentation(String tag, String accept) {
+        return prefersSmile(accept) ? tag + SMILE_SUFFIX : tag;
+    }
+
+    // The tag without its representation suffix: the version, or the change feed position
+    static String withoutRepresentation(String tag) {
+        return tag.endsWith(SMILE_SUFFIX) ? tag.substring(0, tag.length() - SMILE_SUFFIX.length()) : tag;
+    }
+
+    /*
+     * Mirrors content negotiation for the two body formats: the most preferred Accept entry that either
+     * converter can write decides, and wildcards go to JSON, which comes first among the converters.
+     */
+    private static boolean prefersSmile(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> types;
+        try {
+            types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        types.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : types) {
+            if (type.includes(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (type.includes(SMILE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ResponseEntity.eTag adds the quotes
+    static String of(ItemDTO item) {
+        return String.valueOf(item.getVersion());
+    }
+
+    /**
+     * The version an If-Match header asks for, or null when there is no condition ("*" or no header).
+     * Only a single strong tag is supported; anything else is an IllegalArgumentException.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("If-Match must be a single strong ETag: " + ifMatch);
+        }
+        return Long.parseLong(withoutRepresentation(tag.substring(1, tag.length() - 1)));
+    }
+}
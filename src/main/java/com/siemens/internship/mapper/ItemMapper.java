@@ -0,0 +1,45 @@
+package com.siemens.internship.mapper;
+
+import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemRepeatableDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain field-by-field mapping between Item and its DTOs. No reflection or type maps are involved,
+ * so a mapping costs one allocation for the target object.
+ */
+@Component
+public class ItemMapper {
+
+    public ItemDTO toDTO(Item item) {
+        if (item == null) {
+            return null;
+        }
+        return new ItemDTO(item.getId(), item.getName(), item.getDescription(), item.getStatus(), null, item.getEmail(), item.getVersion());
+    }
+
+    public Item toEntity(ItemDTO itemDTO) {
+        if (itemDTO == null) {
+            return null;
+        }
+        return new Item(itemDTO.getId(), itemDTO.getName(), itemDTO.getDescription(), itemDTO.getStatus(), itemDTO.getEmail());
+    }
+
+    public List<ItemDTO> toDTOs(List<Item> items) {
+        List<ItemDTO> dtos = new ArrayList<>(items.size());
+        for (Item item : items) {
+            dtos.add(toDTO(item));
+        }
+        return dtos;
+    }
+
+    // A fresh, unsaved copy of the repeatable item: the ID is never copied, so every copy gets its own
+    public Item toNewEntity(ItemRepeatableDTO itemRepeatable) {
+        ItemDTO source = itemRepeatable.getItem();
+        return new Item(null, source.getName(), source.getDescription(), source.getStatus(), source.getEmail());
+    }
+}
@@ -1,14 +1,33 @@
 package com.siemens.internship.model.DAO;
 
+import com.siemens.internship.service.OpenItemWrites;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
+// Tracks transactions that have written items but not committed yet; see ItemService.runProcessing
+@EntityListeners(OpenItemWrites.Listener.class)
+@Table(indexes = {
+        // Incremental processing pages through changed rows in this order
+        @Index(name = "idx_item_last_modified_id", columnList = "lastModified, id"),
+        // Back the filters of GET /api/items/search
+        @Index(name = "idx_item_status", columnList = "status"),
+        @Index(name = "idx_item_email", columnList = "email"),
+        @Index(name = "idx_item_name", columnList = "name")})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -16,7 +35,9 @@ import lombok.*;
 @Builder
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    // Pooled sequence: one sequence call hands out 50 IDs, so bulk inserts don't pay a round trip per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String description;
@@ -26,4 +47,19 @@ public class Item {
     // Add email regex validation
     @Email(message="Email should be valid")
     private String email;
-}
\ No newline at end of file
+
+    // Set on every insert and entity update; the bulk PROCESSED update leaves it alone on purpose,
+    // so incremental processing only picks up rows that changed for other reasons
+    @UpdateTimestamp
+    private Instant lastModified;
+
+    // Optimistic locking: entity updates check and bump it, and so does the conditional processing UPDATE.
+    // The default covers rows inserted outside JPA (snapshot loads, benchmark seeding)
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
+    public Item(Long id, String name, String description, String status, String email) {
+        this(id, name, description, status, email, null, 0L);
+    }
+}
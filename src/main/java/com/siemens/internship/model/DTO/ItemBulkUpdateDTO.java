@@ -0,0 +1,19 @@
+package com.siemens.internship.model.DTO;
+
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemBulkUpdateDTO {
+    // Each entry needs an id; only its non-null fields are applied
+    @Valid
+    private List<ItemDTO> items;
+}
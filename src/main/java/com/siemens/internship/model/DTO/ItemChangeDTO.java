@@ -0,0 +1,26 @@
+package com.siemens.internship.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemChangeDTO {
+    // RESYNC: the changes after the client's position are gone; re-read the items and resume from this position
+    public enum Type { CREATED, UPDATED, DELETED, PROCESSED, RESYNC }
+
+    // Where a client resumes from to get the changes after this one; set by ItemChangeFeed when published
+    private String position;
+    private Type type;
+    private Long id;
+    // The item after the change; null for DELETED when it was not loaded, and for RESYNC
+    private ItemDTO item;
+
+    public ItemChangeDTO(Type type, Long id, ItemDTO item) {
+        this(null, type, id, item);
+    }
+}
@@ -22,4 +22,19 @@ public class ItemDTO {
     private String processedBy;
     @Email(message="Email should be valid")
     private String email;
+    // Row version for If-Match; ignored on create
+    private Long version;
+
+    public ItemDTO(Long id, String name, String description, String status, String processedBy, String email) {
+        this(id, name, description, status, processedBy, email, null);
+    }
+
+    public ItemDTO(Long id, String name, String description, String status, String email) {
+        this(id, name, description, status, null, email, null);
+    }
+
+    // Used by the JPQL constructor expressions in ItemRepository; processedBy is only set by processing runs
+    public ItemDTO(Long id, String name, String description, String status, String email, long version) {
+        this(id, name, description, status, null, email, version);
+    }
 }
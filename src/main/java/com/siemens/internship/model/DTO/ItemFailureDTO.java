@@ -0,0 +1,15 @@
+package com.siemens.internship.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemFailureDTO {
+    private Long id;
+    private String reason;
+}
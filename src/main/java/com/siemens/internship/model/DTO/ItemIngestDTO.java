@@ -0,0 +1,21 @@
+package com.siemens.internship.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemIngestDTO {
+    public enum Status { PENDING, COMMITTED, FAILED }
+
+    private String pendingId;
+    private Status status;
+    // The saved item, with its ID, once COMMITTED
+    private ItemDTO item;
+    // Why the insert failed, for FAILED
+    private String error;
+}
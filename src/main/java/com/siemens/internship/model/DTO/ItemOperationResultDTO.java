@@ -0,0 +1,19 @@
+package com.siemens.internship.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemOperationResultDTO {
+    public enum Outcome { UPDATED, DELETED, NOT_FOUND, INVALID, CONFLICT }
+
+    private Long id;
+    private Outcome outcome;
+    // The item after the operation for UPDATED, the current item for CONFLICT
+    private ItemDTO item;
+}
@@ -0,0 +1,18 @@
+package com.siemens.internship.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemPageDTO {
+    private List<ItemDTO> items;
+    // Cursor for the next page, null when this was the last page
+    private Long nextAfterId;
+}
@@ -0,0 +1,20 @@
+package com.siemens.internship.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemSearchPageDTO {
+    private List<ItemDTO> items;
+    private int page;
+    private int size;
+    // Number of items matching the filters, across all pages
+    private long totalElements;
+}
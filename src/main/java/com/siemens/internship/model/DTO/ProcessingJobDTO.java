@@ -0,0 +1,31 @@
+package com.siemens.internship.model.DTO;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProcessingJobDTO {
+    private String jobId;
+    private String status;
+    private Instant createdAt;
+    private int total;
+    private int processed;
+    private int failed;
+    // Items changed by another writer while the run had them; left for the next run to pick up
+    private int skipped;
+    private String error;
+    // Items that failed in a PARTIAL run, with the reason; capped at 10 000 entries
+    private List<ItemFailureDTO> deadLetters;
+    // Results that can be paged through, and results that were over the retention limit and not kept
+    private int retainedResults;
+    private int droppedResults;
+    private int page;
+    private int size;
+    private List<ItemDTO> results;
+}
@@ -1,12 +1,94 @@
 package com.siemens.internship.repository;
 
 import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificationExecutor<Item>, ItemRepositoryCustom {
+    // Every ID as one list; only the benchmarks compare against it, processing runs read keyset pages
     @Query("SELECT id FROM Item")
     List<Long> findAllIds();
+
+    /*
+     * Processing runs read their IDs in keyset pages bounded by the highest ID at the start of the run,
+     * so they never hold more than one page of keys and rows inserted mid-run wait for the next run.
+     */
+    @Query("SELECT MAX(i.id) FROM Item i")
+    Optional<Long> findMaxId();
+
+    @Query("SELECT COUNT(i) FROM Item i WHERE i.id <= :upTo")
+    long countIdsUpTo(@Param("upTo") long upTo);
+
+    @Query("SELECT i.id FROM Item i WHERE i.id > :afterId AND i.id <= :upTo ORDER BY i.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, @Param("upTo") long upTo, Limit limit);
+
+    // Incremental processing: only rows inserted or changed since the watermark, via idx_item_last_modified_id
+    @Query("SELECT COUNT(i) FROM Item i WHERE i.lastModified > :since AND i.id <= :upTo")
+    long countIdsModifiedSince(@Param("since") Instant since, @Param("upTo") long upTo);
+
+    /*
+     * Keyset pages in (lastModified, id) order, the order of idx_item_last_modified_id: H2 reads the changed
+     * rows straight off the index and stops at the limit, so a page costs the same however large the table is.
+     * Start with afterModified = the watermark and afterId = Long.MAX_VALUE, then resume after the last key.
+     */
+    @Query("SELECT i.lastModified AS lastModified, i.id AS id FROM Item i "
+            + "WHERE i.lastModified >= :afterModified AND (i.lastModified > :afterModified OR i.id > :afterId) AND i.id <= :upTo "
+            + "ORDER BY i.lastModified, i.id")
+    List<ModifiedKey> findModifiedAfter(@Param("afterModified") Instant afterModified, @Param("afterId") long afterId,
+                                        @Param("upTo") long upTo, Limit limit);
+
+    interface ModifiedKey {
+        Instant getLastModified();
+
+        long getId();
+    }
+
+    // Dead letters carried over from the last run that the modified-since pages will not return anyway
+    @Query("SELECT i.id FROM Item i WHERE i.id IN :ids AND (i.lastModified IS NULL OR i.lastModified <= :since)")
+    List<Long> findIdsNotModifiedSince(@Param("ids") Collection<Long> ids, @Param("since") Instant since);
+
+    /*
+     * Read paths project straight into ItemDTO: no managed entities, no dirty-checking snapshots,
+     * and no second object graph to copy from.
+     */
+    String ITEM_DTO_PROJECTION = "SELECT new com.siemens.internship.model.DTO.ItemDTO(i.id, i.name, i.description, i.status, i.email, i.version) FROM Item i";
+
+    @Query(ITEM_DTO_PROJECTION + " ORDER BY i.id")
+    List<ItemDTO> findAllProjected();
+
+    @Query(ITEM_DTO_PROJECTION + " WHERE i.id = :id")
+    Optional<ItemDTO> findProjectedById(@Param("id") Long id);
+
+    // Keyset page: only rows after the cursor are read, so deep pages cost the same as the first one
+    @Query(ITEM_DTO_PROJECTION + " WHERE i.id > :afterId ORDER BY i.id")
+    List<ItemDTO> findPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Must be consumed inside a transaction and closed; rows are fetched from the cursor in chunks
+    @Query(ITEM_DTO_PROJECTION + " ORDER BY i.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ItemDTO> streamAllProjected();
+
+    @Query("SELECT i.id FROM Item i WHERE i.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // A single DELETE statement; unlike deleteById it does not load each entity first
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Item i WHERE i.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,13 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.DAO.Item;
+
+import java.util.List;
+
+public interface ItemRepositoryCustom {
+    /**
+     * Sets the status of every item whose row still has the version the item was loaded with, and bumps
+     * that version. Returns the IDs that were not updated because they changed or were deleted since.
+     */
+    List<Long> updateStatusIfUnchanged(List<Item> items, String status);
+}
@@ -0,0 +1,54 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.DAO.Item;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A JPQL bulk UPDATE can only compare one version for the whole IN list, so the per-row check is a
+ * JDBC batch instead: still one round trip per chunk, and the per-statement counts tell which rows lost.
+ * lastModified is left alone like before, so incremental processing does not pick these rows up again.
+ */
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+    private static final String UPDATE_STATUS_IF_UNCHANGED =
+            "UPDATE item SET status = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public List<Long> updateStatusIfUnchanged(List<Item> items, String status) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS_IF_UNCHANGED, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Item item = items.get(i);
+                statement.setString(1, status);
+                statement.setLong(2, item.getId());
+                statement.setLong(3, item.getVersion());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+        List<Long> conflicts = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                conflicts.add(items.get(i).getId());
+            }
+        }
+        return conflicts;
+    }
+}
@@ -0,0 +1,32 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.DAO.Item;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Search filters for {@link ItemRepository}. A null argument means "no filter" and yields a null
+ * specification, which Specification.where/and ignore. Every filter is index friendly: exact
+ * matches on status and email, and a prefix LIKE on name.
+ */
+public final class ItemSpecifications {
+
+    private ItemSpecifications() {
+    }
+
+    public static Specification<Item> hasStatus(String status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Item> hasEmail(String email) {
+        return email == null ? null : (root, query, cb) -> cb.equal(root.get("email"), email);
+    }
+
+    public static Specification<Item> nameStartsWith(String prefix) {
+        return prefix == null ? null
+                : (root, query, cb) -> cb.like(root.get("name"), escapeLike(prefix) + "%", '\\');
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,195 @@
+package com.siemens.internship.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shared queue of small ID ranges that processing workers pull from until it is empty, so an idle
+ * worker always takes the next piece of work instead of waiting on a fixed partition.
+ * <p>
+ * The chunk size follows the observed per-item latency (an exponentially weighted average) so each
+ * chunk takes roughly {@code targetChunkNanos}. It also shrinks as the queue drains, so the run ends
+ * with small chunks and the last worker finishes close to the others.
+ * <p>
+ * IDs are pulled lazily from an {@link IdPages} source, {@link #ID_PAGE_SIZE} primitive longs at a time,
+ * so the heap holds at most two pages of keys however many items the run covers. Only claimed chunks are
+ * boxed. Once half of a page is handed out, the worker claiming the next chunk fetches the following page
+ * outside the lock, so the others keep claiming chunks during the query instead of queueing behind it.
+ */
+public class AdaptiveChunkQueue {
+    public static final int MIN_CHUNK_SIZE = 1;
+    public static final int INITIAL_CHUNK_SIZE = 8;
+    public static final int MAX_CHUNK_SIZE = 1000;
+    public static final int ID_PAGE_SIZE = 10_000;
+    private static final double SMOOTHING = 0.3;
+    private static final long[] NO_IDS = new long[0];
+
+    /**
+     * Supplies the IDs of a run a page at a time; an empty page means there are no more. Only called
+     * by one thread at a time, so implementations may keep their cursor in plain fields.
+     */
+    @FunctionalInterface
+    public interface IdPages {
+        long[] nextPage(int maxSize);
+
+        default IdPages andThen(IdPages next) {
+            IdPages first = this;
+            return new IdPages() {
+                private boolean firstDone;
+
+                @Override
+                public long[] nextPage(int maxSize) {
+                    if (!firstDone) {
+                        long[] page = first.nextPage(maxSize);
+                        if (page.length > 0) {
+                            return page;
+                        }
+                        firstDone = true;
+                    }
+                    return next.nextPage(maxSize);
+                }
+            };
+        }
+
+        static IdPages of(long[] ids) {
+            return new IdPages() {
+                private int position;
+
+                @Override
+                public long[] nextPage(int maxSize) {
+                    int from = position;
+                    position = Math.min(ids.length, from + maxSize);
+                    return from == position ? NO_IDS : Arrays.copyOfRange(ids, from, position);
+                }
+            };
+        }
+    }
+
+    private final IdPages source;
+    private final long total;
+    private final int workers;
+    private final long targetChunkNanos;
+    // All guarded by this
+    private long[] page = NO_IDS;
+    private int pagePosition;
+    // The page after the current one, once fetched
+    private long[] nextPage;
+    private boolean fetching;
+    private RuntimeException fetchFailure;
+    private long claimed;
+    private boolean drained;
+    // Negative until the first chunk reports back
+    private volatile double nanosPerItem = -1;
+
+    public AdaptiveChunkQueue(List<Long> ids, int workers, long targetChunkNanos) {
+        this(IdPages.of(ids.stream().mapToLong(Long::longValue).toArray()), ids.size(), workers, targetChunkNanos);
+    }
+
+    /** {@code total} is the expected number of IDs; it only steers chunk sizes towards the end of the run. */
+    public AdaptiveChunkQueue(IdPages source, long total, int workers, long targetChunkNanos) {
+        this.source = source;
+        this.total = total;
+        this.workers = Math.max(1, workers);
+        this.targetChunkNanos = targetChunkNanos;
+    }
+
+    /**
+     * Claims the next chunk; an empty list means the queue is drained. A worker that finds every page used
+     * up waits for the fetch in progress. If a fetch fails, the queue counts as drained once the IDs already
+     * fetched are handed out, and the exception goes to the first worker that runs out of them.
+     */
+    public List<Long> nextChunk() {
+        while (true) {
+            List<Long> chunk = null;
+            synchronized (this) {
+                if (pagePosition == page.length && nextPage != null) {
+                    page = nextPage;
+                    nextPage = null;
+                    pagePosition = 0;
+                }
+                if (pagePosition < page.length) {
+                    chunk = claim();
+                    if (drained || fetching || nextPage != null || pagePosition < page.length / 2) {
+                        return chunk;
+                    }
+                } else if (fetchFailure != null) {
+                    RuntimeException failure = fetchFailure;
+                    fetchFailure = null;
+                    throw failure;
+                } else if (drained) {
+                    return List.of();
+                } else if (fetching) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // Shutdown: the caller sees its interrupt flag and stops
+                        Thread.currentThread().interrupt();
+                        return List.of();
+                    }
+                    continue;
+                }
+                fetching = true;
+            }
+            fetchNextPage();
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+    }
+
+    private List<Long> claim() {
+        int size = Math.min(chunkSize(), page.length - pagePosition);
+        List<Long> chunk = new ArrayList<>(size);
+        for (int i = pagePosition; i < pagePosition + size; i++) {
+            chunk.add(page[i]);
+        }
+        pagePosition += size;
+        claimed += size;
+        return chunk;
+    }
+
+    // Runs outside the lock; the fetching flag keeps it to one fetch at a time, as IdPages expects
+    private void fetchNextPage() {
+        long[] fetched = NO_IDS;
+        RuntimeException failure = null;
+        try {
+            fetched = source.nextPage(ID_PAGE_SIZE);
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            synchronized (this) {
+                fetching = false;
+                if (fetched.length == 0) {
+                    drained = true;
+                    fetchFailure = failure;
+                } else {
+                    nextPage = fetched;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    public void recordLatency(int items, long elapsedNanos) {
+        if (items <= 0) {
+            return;
+        }
+        double observed = (double) elapsedNanos / items;
+        double current = nanosPerItem;
+        nanosPerItem = current < 0 ? observed : SMOOTHING * observed + (1 - SMOOTHING) * current;
+    }
+
+    private int chunkSize() {
+        double perItem = nanosPerItem;
+        int adaptive = perItem < 0 ? INITIAL_CHUNK_SIZE : (int) Math.min(MAX_CHUNK_SIZE, targetChunkNanos / Math.max(1.0, perItem));
+        // Guided scheduling: never take more than a half share of what is left. total is counted before the run
+        // starts; if more IDs turn up than that, there is no telling how many are left, so stay adaptive
+        long remaining = total - claimed;
+        if (remaining <= 0) {
+            return Math.max(MIN_CHUNK_SIZE, adaptive);
+        }
+        long tail = (long) Math.ceil(remaining / (2.0 * workers));
+        return (int) Math.max(MIN_CHUNK_SIZE, Math.min(adaptive, tail));
+    }
+}
@@ -0,0 +1,152 @@
+package com.siemens.internship.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many processing workers talk to the database at once. With virtual threads the number of
+ * workers is unbounded, so without this they would all queue inside the connection pool instead.
+ *
+ * The cap adapts to the pool (AIMD): when threads are waiting for a Hikari connection it shrinks by a
+ * quarter, otherwise it grows by one, up to the configured permits. Request threads that share the
+ * pool therefore get connections back quickly while a processing run is in progress.
+ */
+@Component
+public class DatabaseConcurrencyLimiter implements MeterBinder {
+    private static final Duration DEFAULT_ADJUST_INTERVAL = Duration.ofMillis(100);
+
+    private final int maxPermits;
+    private final IntSupplier poolWaiters;
+    private final long adjustIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private int limit;
+    private int inFlight;
+    private long lastAdjustNanos;
+
+    public DatabaseConcurrencyLimiter(int permits) {
+        this(permits, () -> 0, DEFAULT_ADJUST_INTERVAL);
+    }
+
+    @Autowired
+    public DatabaseConcurrencyLimiter(@Value("${items.processing.db-permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+                                      ObjectProvider<DataSource> dataSource) {
+        this(permits, hikariWaiters(dataSource.getIfAvailable()), DEFAULT_ADJUST_INTERVAL);
+    }
+
+    public DatabaseConcurrencyLimiter(int permits, IntSupplier poolWaiters, Duration adjustInterval) {
+        this.maxPermits = Math.max(1, permits);
+        this.poolWaiters = poolWaiters;
+        this.adjustIntervalNanos = adjustInterval.toNanos();
+        this.limit = maxPermits;
+        this.lastAdjustNanos = System.nanoTime();
+    }
+
+    public <T> T call(Supplier<T> databaseCall) {
+        acquire();
+        try {
+            return databaseCall.get();
+        } finally {
+            release();
+        }
+    }
+
+    public int availablePermits() {
+        lock.lock();
+        try {
+            return Math.max(0, limit - inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int currentLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.processing.db.limit", this, DatabaseConcurrencyLimiter::currentLimit)
+                .description("Current cap on concurrent processing database calls")
+                .register(registry);
+        Gauge.builder("items.processing.db.in-flight", this, limiter -> limiter.currentLimit() - limiter.availablePermits())
+                .description("Processing database calls in progress")
+                .register(registry);
+    }
+
+    private void acquire() {
+        lock.lock();
+        try {
+            while (inFlight >= limit) {
+                released.await();
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database permit", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            adjust();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called under the lock; at most one adjustment per interval so a burst of releases counts once
+    private void adjust() {
+        long now = System.nanoTime();
+        if (now - lastAdjustNanos < adjustIntervalNanos) {
+            return;
+        }
+        lastAdjustNanos = now;
+        if (poolWaiters.getAsInt() > 0) {
+            limit = Math.max(1, limit - Math.max(1, limit / 4));
+        } else if (limit < maxPermits) {
+            limit++;
+        }
+    }
+
+    private static IntSupplier hikariWaiters(DataSource dataSource) {
+        if (dataSource == null) {
+            return () -> 0;
+        }
+        try {
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            return () -> {
+                // Null until the pool has handed out its first connection
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+            };
+        } catch (SQLException e) {
+            return () -> 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the first {@code capacity} results on the heap and only counts the rest.
+ */
+public class InMemoryResultSink implements ProcessingResultSink {
+    private final int capacity;
+    private final List<ItemDTO> results = new ArrayList<>();
+    private int dropped;
+
+    public InMemoryResultSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void accept(List<ItemDTO> chunk) {
+        int room = Math.max(0, capacity - results.size());
+        if (chunk.size() <= room) {
+            results.addAll(chunk);
+        } else {
+            results.addAll(chunk.subList(0, room));
+            dropped += chunk.size() - room;
+        }
+    }
+
+    @Override
+    public synchronized List<ItemDTO> read(int offset, int limit) {
+        int from = Math.min(Math.max(0, offset), results.size());
+        int to = (int) Math.min((long) from + limit, results.size());
+        return new ArrayList<>(results.subList(from, to));
+    }
+
+    @Override
+    public synchronized int retained() {
+        return results.size();
+    }
+
+    @Override
+    public synchronized int dropped() {
+        return dropped;
+    }
+
+    @Override
+    public synchronized void close() {
+        results.clear();
+    }
+}
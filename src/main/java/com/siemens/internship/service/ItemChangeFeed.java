@@ -0,0 +1,238 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DTO.ItemChangeDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process feed of committed item changes, kept in a ring of the last `capacity` changes. Publishing
+ * overwrites the oldest slot and never waits for readers. A reader whose position has already been
+ * overwritten gets a resync instead, and re-reads the items.
+ *
+ * Writes publish with publishAfterCommit: a transaction's changes are collected in one place and published
+ * together once it commits. A transaction that changes more items than the ring holds would lap every reader
+ * anyway, so it publishes a single RESYNC change instead, and never holds more than a ring of changes.
+ *
+ * A position is "epoch-offset": the offset of the next change, prefixed with the time the feed was
+ * created. After a restart the offsets start over, and the epoch keeps old positions from matching.
+ *
+ * Each open stream holds a virtual thread and a connection, so at most `maxSubscribers` may read at once.
+ */
+@Component
+public class ItemChangeFeed implements MeterBinder {
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final ItemChangeDTO[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final int maxSubscribers;
+    // Offset of the next change; the ring holds offsets [next - ring.length, next)
+    private long next;
+
+    @Autowired
+    public ItemChangeFeed(@Value("${items.changes.capacity:10000}") int capacity,
+                          @Value("${items.changes.max-subscribers:1000}") int maxSubscribers) {
+        this.ring = new ItemChangeDTO[Math.max(1, capacity)];
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    // Takes a subscriber slot, or returns false when all of them are taken; a true must be paired with unsubscribe
+    public boolean subscribe() {
+        if (subscribers.getAndUpdate(n -> n < maxSubscribers ? n + 1 : n) < maxSubscribers) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public void unsubscribe() {
+        subscribers.decrementAndGet();
+    }
+
+    public String position() {
+        lock.lock();
+        try {
+            return position(next);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void publish(List<ItemChangeDTO> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (ItemChangeDTO change : changes) {
+                change.setPosition(position(next + 1));
+                ring[(int) (next % ring.length)] = change;
+                next++;
+            }
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Publishes when the current transaction commits, together with the rest of its changes; outside a transaction, right away
+    public void publishAfterCommit(List<ItemChangeDTO> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(changes);
+            return;
+        }
+        TransactionChanges pending = (TransactionChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new TransactionChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(changes);
+    }
+
+    /**
+     * Up to max changes after position, waiting up to wait for the first one; an empty batch when
+     * none came in time. The batch position is where to read from next.
+     */
+    public Batch read(String position, int max, Duration wait) throws InterruptedException {
+        long offset = offsetOf(position);
+        lock.lock();
+        try {
+            long waitNanos = wait.toNanos();
+            while (offset == next && waitNanos > 0) {
+                waitNanos = published.awaitNanos(waitNanos);
+            }
+            if (offset < 0 || offset < next - ring.length || offset > next) {
+                resyncs.incrementAndGet();
+                return new Batch(List.of(new ItemChangeDTO(position(next), ItemChangeDTO.Type.RESYNC, null, null)), position(next), true);
+            }
+            int count = (int) Math.min(max, next - offset);
+            List<ItemChangeDTO> changes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ItemChangeDTO change = ring[(int) ((offset + i) % ring.length)];
+                changes.add(change);
+                // Published for a transaction too large for the ring; the reader resyncs as if it had been lapped
+                if (change.getType() == ItemChangeDTO.Type.RESYNC) {
+                    return new Batch(changes, position(offset + i + 1), true);
+                }
+            }
+            return new Batch(changes, position(offset + count), false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("items.changes.published", this, ItemChangeFeed::published)
+                .description("Item changes published to the change feed")
+                .register(registry);
+        FunctionCounter.builder("items.changes.resyncs", resyncs, AtomicLong::get)
+                .description("Change feed reads that were too far behind and were told to resync")
+                .register(registry);
+        Gauge.builder("items.changes.subscribers", subscribers, AtomicInteger::get)
+                .description("Change streams currently open")
+                .register(registry);
+        FunctionCounter.builder("items.changes.rejected", rejected, AtomicLong::get)
+                .description("Change streams refused because items.changes.max-subscribers were open")
+                .register(registry);
+    }
+
+    private long published() {
+        lock.lock();
+        try {
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String position(long offset) {
+        return epoch + "-" + offset;
+    }
+
+    // -1 for a position of another epoch or one that isn't a position at all; read treats both as too old
+    private long offsetOf(String position) {
+        if (position == null || !position.startsWith(epoch + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(position.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // The changes of one transaction, published by afterCommit and unbound once it completes either way
+    private final class TransactionChanges implements TransactionSynchronization {
+        private List<ItemChangeDTO> changes = new ArrayList<>();
+        private boolean overflowed;
+
+        void add(List<ItemChangeDTO> more) {
+            if (overflowed) {
+                return;
+            }
+            if (changes.size() + more.size() > ring.length) {
+                overflowed = true;
+                changes = List.of();
+                return;
+            }
+            changes.addAll(more);
+        }
+
+        @Override
+        public void afterCommit() {
+            publish(overflowed ? List.of(new ItemChangeDTO(ItemChangeDTO.Type.RESYNC, null, null)) : changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ItemChangeFeed.this);
+        }
+    }
+
+    public static final class Batch {
+        private final List<ItemChangeDTO> changes;
+        private final String position;
+        private final boolean resync;
+
+        Batch(List<ItemChangeDTO> changes, String position, boolean resync) {
+            this.changes = changes;
+            this.position = position;
+            this.resync = resync;
+        }
+
+        public List<ItemChangeDTO> getChanges() {
+            return changes;
+        }
+
+        public String getPosition() {
+            return position;
+        }
+
+        // Ends with a RESYNC change; the reader re-reads the items and resumes from getPosition
+        public boolean isResync() {
+            return resync;
+        }
+    }
+}
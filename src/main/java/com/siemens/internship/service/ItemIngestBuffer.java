@@ -0,0 +1,281 @@
+package com.siemens.internship.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemIngestDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind mode of POST /api/items (items.ingest.write-behind=true). Creates are queued and a single
+ * writer thread inserts them in groups through ItemService.saveAll, one transaction per group, so a burst
+ * of creates pays for one commit per group instead of one per request. A group is written once it has
+ * batch-size items or its oldest item has waited max-delay.
+ *
+ * The queue is lock-free; its size is capped with a counter, and submit refuses items once it is full.
+ * If a group fails, its items are inserted one by one, so only the bad ones fail.
+ */
+@Slf4j
+@Component
+public class ItemIngestBuffer implements SmartLifecycle {
+    // Outcomes of recent creates stay available to GET /api/items/pending/{id} this long
+    private static final int TRACKED_ITEMS = 100_000;
+    private static final Duration TRACKED_FOR = Duration.ofMinutes(10);
+    private static final Duration SHUTDOWN_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    // What a client is told about a failed create; the exception itself, which may quote SQL, is only logged
+    private static final String FAILED_REASON = "The item could not be saved";
+
+    private final ItemService itemService;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final Duration commitTimeout;
+    private final ConcurrentLinkedQueue<PendingItem> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Cache<String, PendingItem> recent = Caffeine.newBuilder()
+            .maximumSize(TRACKED_ITEMS)
+            .expireAfterWrite(TRACKED_FOR)
+            .build();
+    private final Timer commitTimer;
+    private final Timer latencyTimer;
+    private final DistributionSummary groupSizes;
+    private final MeterRegistry meterRegistry;
+    private volatile Thread writer;
+    private volatile boolean accepting;
+    // Set while the writer is parked on an empty queue; the submit that clears it wakes the writer
+    private final AtomicBoolean idle = new AtomicBoolean();
+
+    @Autowired
+    public ItemIngestBuffer(ItemService itemService, MeterRegistry meterRegistry,
+                            @Value("${items.ingest.write-behind:false}") boolean enabled,
+                            @Value("${items.ingest.capacity:10000}") int capacity,
+                            @Value("${items.ingest.batch-size:500}") int batchSize,
+                            @Value("${items.ingest.max-delay-ms:5}") long maxDelayMillis,
+                            @Value("${items.ingest.commit-timeout-ms:5000}") long commitTimeoutMillis) {
+        this.itemService = itemService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+        this.commitTimeout = Duration.ofMillis(Math.max(0, commitTimeoutMillis));
+        this.commitTimer = Timer.builder("items.ingest.commit")
+                .description("Duration of one group commit")
+                .register(meterRegistry);
+        this.latencyTimer = Timer.builder("items.ingest.latency")
+                .description("Time from queueing a create to its commit")
+                .register(meterRegistry);
+        this.groupSizes = DistributionSummary.builder("items.ingest.group.size")
+                .description("Items inserted per group commit")
+                .register(meterRegistry);
+        Gauge.builder("items.ingest.queued", queued, AtomicInteger::get)
+                .description("Creates waiting for a group commit")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Empty when the queue is full or the buffer is not running; the caller should push back on the client
+    public Optional<PendingItem> submit(ItemDTO item) {
+        // Counted before accepting is checked: the writer only exits once the count is back to zero, so an
+        // item that got past the check while stop() ran is still in the queue when the writer looks
+        int size = queued.incrementAndGet();
+        if (!accepting) {
+            queued.decrementAndGet();
+            return Optional.empty();
+        }
+        if (size > capacity) {
+            queued.decrementAndGet();
+            meterRegistry.counter("items.ingest.rejected").increment();
+            return Optional.empty();
+        }
+        PendingItem pending = new PendingItem(item);
+        recent.put(pending.getId(), pending);
+        queue.offer(pending);
+        // Otherwise the writer is already gathering a group and wakes up on its own once the oldest item has waited max-delay
+        if (size >= batchSize || idle.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+        return Optional.of(pending);
+    }
+
+    public Optional<PendingItem> find(String pendingId) {
+        return Optional.ofNullable(recent.getIfPresent(pendingId));
+    }
+
+    // True once the item is committed or has failed, false if that took longer than items.ingest.commit-timeout-ms
+    public boolean awaitCommit(PendingItem pending) {
+        try {
+            pending.committed.get(commitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runWriter() {
+        List<PendingItem> group = new ArrayList<>(batchSize);
+        while (true) {
+            PendingItem first = queue.poll();
+            if (first == null) {
+                if (!accepting) {
+                    if (queued.get() == 0) {
+                        return;
+                    }
+                    // A submit that got past the accepting check is about to offer its item
+                    Thread.onSpinWait();
+                    continue;
+                }
+                // Parks until a submit or stop() wakes it. The queue is checked again after announcing the park:
+                // a submit either sees idle and unparks, or offered its item before that check
+                idle.set(true);
+                if (queue.isEmpty() && accepting) {
+                    LockSupport.park(this);
+                }
+                idle.set(false);
+                continue;
+            }
+            group.add(first);
+            long deadline = first.enqueuedNanos + maxDelayNanos;
+            while (group.size() < batchSize) {
+                PendingItem next = queue.poll();
+                if (next != null) {
+                    group.add(next);
+                    continue;
+                }
+                long wait = deadline - System.nanoTime();
+                if (wait <= 0 || !accepting) {
+                    break;
+                }
+                LockSupport.parkNanos(this, wait);
+            }
+            queued.addAndGet(-group.size());
+            commit(group);
+            group.clear();
+        }
+    }
+
+    private void commit(List<PendingItem> group) {
+        List<ItemDTO> items = new ArrayList<>(group.size());
+        for (PendingItem pending : group) {
+            items.add(pending.item);
+        }
+        List<ItemDTO> saved;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            saved = itemService.saveAll(items);
+        } catch (RuntimeException e) {
+            // The whole group was rolled back; one transaction per item finds the ones that can't be inserted
+            for (PendingItem pending : group) {
+                try {
+                    complete(pending, itemService.save(pending.item));
+                } catch (RuntimeException itemFailure) {
+                    log.warn("Could not insert queued item {}", pending.id, itemFailure);
+                    pending.committed.completeExceptionally(itemFailure);
+                }
+            }
+            return;
+        } finally {
+            sample.stop(commitTimer);
+        }
+        groupSizes.record(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            complete(group.get(i), saved.get(i));
+        }
+    }
+
+    private void complete(PendingItem pending, ItemDTO saved) {
+        latencyTimer.record(System.nanoTime() - pending.enqueuedNanos, TimeUnit.NANOSECONDS);
+        pending.committed.complete(saved);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || writer != null) {
+            return;
+        }
+        accepting = true;
+        writer = Thread.ofPlatform().name("item-ingest-writer").daemon().start(this::runWriter);
+    }
+
+    // Stops taking creates and writes out what is already queued before the connection pool shuts down
+    @Override
+    public void stop() {
+        Thread running = writer;
+        if (running == null) {
+            return;
+        }
+        accepting = false;
+        LockSupport.unpark(running);
+        try {
+            running.join(SHUTDOWN_DRAIN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    // Started before and stopped after the web server, so no request finds the buffer closed
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    public static final class PendingItem {
+        private final String id = UUID.randomUUID().toString();
+        private final ItemDTO item;
+        private final long enqueuedNanos = System.nanoTime();
+        private final CompletableFuture<ItemDTO> committed = new CompletableFuture<>();
+
+        PendingItem(ItemDTO item) {
+            this.item = item;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public ItemIngestDTO toDTO() {
+            return switch (committed.state()) {
+                case SUCCESS -> new ItemIngestDTO(id, ItemIngestDTO.Status.COMMITTED, committed.resultNow(), null);
+                case FAILED -> new ItemIngestDTO(id, ItemIngestDTO.Status.FAILED, null, FAILED_REASON);
+                default -> new ItemIngestDTO(id, ItemIngestDTO.Status.PENDING, null, null);
+            };
+        }
+    }
+}
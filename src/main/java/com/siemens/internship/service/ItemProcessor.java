@@ -0,0 +1,12 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DAO.Item;
+
+/**
+ * Per-item work done by a processing run. Implementations only work on the in-memory entity;
+ * loading the chunk and persisting the PROCESSED status is done in bulk by ItemService.
+ */
+@FunctionalInterface
+public interface ItemProcessor {
+    void process(Item item) throws InterruptedException;
+}
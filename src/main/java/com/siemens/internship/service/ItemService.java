@@ -1,92 +1,385 @@
 package com.siemens.internship.service;
 
+import com.siemens.internship.config.CacheConfig;
+import com.siemens.internship.mapper.ItemMapper;
 import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemChangeDTO;
 import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemFailureDTO;
+import com.siemens.internship.model.DTO.ItemOperationResultDTO;
+import com.siemens.internship.model.DTO.ItemOperationResultDTO.Outcome;
+import com.siemens.internship.model.DTO.ItemPageDTO;
 import com.siemens.internship.model.DTO.ItemRepeatableDTO;
+import com.siemens.internship.model.DTO.ItemSearchPageDTO;
+import com.siemens.internship.model.DTO.ProcessingJobDTO;
 import com.siemens.internship.repository.ItemRepository;
-import org.modelmapper.ModelMapper;
+import com.siemens.internship.repository.ItemSpecifications;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.time.Instant;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "items.service", description = "ItemService method latency, tagged by method")
 public class ItemService {
     @Autowired
     private ItemRepository itemRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private ItemMapper itemMapper;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private ItemProcessor itemProcessor;
+    @Autowired
+    private ProcessingJobRegistry jobRegistry;
+    @Autowired
+    private DatabaseConcurrencyLimiter databaseLimiter;
+    @Autowired
+    private TransientRetry transientRetry;
+    @Autowired
+    @Qualifier("processingExecutor")
+    private ExecutorService executor;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ItemChangeFeed changeFeed;
+    @Autowired
+    private OpenItemWrites openWrites;
 
     public ItemDTO convertToDTO(Item item) {
-        return modelMapper.map(item, ItemDTO.class);
+        return itemMapper.toDTO(item);
     }
 
     public Item convertToEntity(ItemDTO itemDTO) {
-        return modelMapper.map(itemDTO, Item.class);
+        return itemMapper.toEntity(itemDTO);
     }
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    // Columns GET /api/items/search may sort by
+    public static final Set<String> SEARCH_SORT_FIELDS = Set.of("id", "name", "status", "email");
+    public static final String PROCESSED_STATUS = "PROCESSED";
+    // Kept equal to hibernate.jdbc.batch_size so every flush sends full JDBC batches
+    private static final int INSERT_BATCH_SIZE = 50;
+    // Bulk endpoints work through their input in chunks of this many IDs per IN (...) query
+    private static final int BULK_CHUNK_SIZE = 1000;
+    // An unconditional PUT that loses a version race to another writer re-reads and tries again this often
+    private static final int UNCONDITIONAL_UPDATE_ATTEMPTS = 3;
+
     private static final int NUMBER_OF_THREADS = 10;
-    private static ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
 
-    private final List<ItemDTO> processedItems = new CopyOnWriteArrayList<ItemDTO>();
-    private int processedCount = 0;
+    @Value("${items.processing.threads:10}")
+    private int workers = NUMBER_OF_THREADS;
+    // Chunks are sized so that one takes about this long; short enough to keep the tail of a run small
+    @Value("${items.processing.target-chunk-millis:500}")
+    private long targetChunkMillis = 500;
 
+    // A stuck item is abandoned (and interrupted) after this long and dead-lettered; 0 disables the limit
+    @Value("${items.processing.item-timeout-ms:30000}")
+    private long itemTimeoutMillis = 30_000;
+    // Runs each item when a timeout is set, so the worker can give up on it
+    @Autowired
+    @Qualifier("itemTimeoutExecutor")
+    private ExecutorService itemExecutor;
+
+    @Value("${items.processing.max-retained-results:10000}")
+    private int maxRetainedResults = 10_000;
+    // Past maxRetainedResults, results go to a temp file instead of being dropped
+    @Value("${items.processing.spill-results:false}")
+    private boolean spillResults;
+
+    /*
+     * Start of the last run that completed without failures, or the first write of the oldest transaction
+     * still open when it started if that is earlier, minus the overlap. Rows whose lastModified is older than
+     * this have already been processed in their current state. A transaction stamps rows when it flushes and
+     * may commit long after, so the open writes matter; the overlap only covers the gap between the stamp and
+     * OpenItemWrites noticing it. Null until the first successful run, so the first run after startup
+     * processes every item.
+     */
+    @Value("${items.processing.watermark-overlap-ms:1000}")
+    private long watermarkOverlapMillis = 1000;
+    private final AtomicReference<Instant> processingWatermark = new AtomicReference<>();
+    // Set on shutdown: workers finish the chunk in hand and take no more, so closing the executor doesn't wait out whole runs
+    private volatile boolean stopping;
+    // Dead letters of earlier runs; incremental runs pick them up again even though their lastModified is old
+    private final Set<Long> retryIds = ConcurrentHashMap.newKeySet();
+
+    /*
+     * The list ETag is the change feed position: every write made through this service, processing runs
+     * included, publishes its changes once committed. An unchanged position means an unchanged table, so
+     * If-None-Match on a list is answered without a query, and a client holding a list ETag can follow
+     * GET /api/items/changes from exactly that point.
+     */
+    public String itemsETag() {
+        return changeFeed.position();
+    }
 
+    /*
+     * Published only after the commit. Otherwise a reader could see the new tag, still read the old rows, and
+     * serve them under a tag that keeps matching. Readers take the tag before querying, so a write racing
+     * the read can only make the next request a 200 instead of a 304, never the other way round.
+     */
+    private void publishChanges(List<ItemChangeDTO> changes) {
+        changeFeed.publishAfterCommit(changes);
+    }
+
+    // Runs the action once the current transaction has committed, or right away outside of one
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static List<ItemChangeDTO> changesOf(ItemChangeDTO.Type type, List<ItemDTO> items) {
+        List<ItemChangeDTO> changes = new ArrayList<>(items.size());
+        for (ItemDTO item : items) {
+            changes.add(new ItemChangeDTO(type, item.getId(), item));
+        }
+        return changes;
+    }
+
+    /*
+     * Read paths use DTO projections inside read-only transactions: Spring switches the Hibernate
+     * session to FlushMode.MANUAL, and since no entities are loaded there is nothing to snapshot.
+     */
+    @Transactional(readOnly = true)
     public List<ItemDTO> findAll() {
-        return itemRepository.findAll().stream().map(this::convertToDTO).collect(Collectors.toList());
+        return itemRepository.findAllProjected();
     }
 
+    @Transactional(readOnly = true)
+    public ItemPageDTO findPage(Long afterId, int limit) {
+        int pageSize = Math.min(Math.max(1, limit), MAX_PAGE_SIZE);
+        List<ItemDTO> page = itemRepository.findPageAfter(afterId == null ? 0L : afterId, Limit.of(pageSize));
+        Long nextAfterId = page.size() == pageSize ? page.get(page.size() - 1).getId() : null;
+        return new ItemPageDTO(page, nextAfterId);
+    }
+
+    /**
+     * Filtered, sorted page of items. Filters are combined with AND and skipped when null; id is
+     * always the last sort key so pages stay stable when the sort column has duplicates.
+     */
+    @Transactional(readOnly = true)
+    public ItemSearchPageDTO search(String status, String email, String namePrefix,
+                                    int page, int size, String sortField, boolean descending) {
+        int pageSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, sortField);
+        if (!"id".equals(sortField)) {
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+        Specification<Item> filters = Specification.where(ItemSpecifications.hasStatus(status))
+                .and(ItemSpecifications.hasEmail(email))
+                .and(ItemSpecifications.nameStartsWith(namePrefix));
+
+        Page<Item> result = itemRepository.findAll(filters, PageRequest.of(Math.max(0, page), pageSize, sort));
+        return new ItemSearchPageDTO(itemMapper.toDTOs(result.getContent()), result.getNumber(),
+                result.getSize(), result.getTotalElements());
+    }
+
+    /**
+     * Hands every item to the consumer while rows are still being read from the cursor.
+     * Rows are projected into DTOs, so nothing accumulates in the persistence context.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<ItemDTO> consumer) {
+        try (Stream<ItemDTO> items = itemRepository.streamAllProjected()) {
+            items.forEach(consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.ITEMS_CACHE, key = "#id", unless = "#result == null")
     public Optional<ItemDTO> findById(Long id) {
-        return itemRepository.findById(id)
-                .map(item->convertToDTO(item));
-    }
-    public Optional<ItemDTO>updateItem(Long id,Item updatedItem){
-        return itemRepository.findById(id).map(existsById ->{
-            updatedItem.setId(id);
-            Item savedItem=itemRepository.save(updatedItem);
-            return convertToDTO(savedItem);
-        });
+        return itemRepository.findProjectedById(id);
+    }
+
+    /**
+     * Replaces the item when its version still equals expectedVersion (from If-Match), and otherwise
+     * throws an OptimisticLockingFailureException. With no expected version the write goes to whatever
+     * version is current, retrying if another writer gets in between the read and the UPDATE.
+     */
+    @CacheEvict(cacheNames = CacheConfig.ITEMS_CACHE, key = "#id")
+    public Optional<ItemDTO> updateItem(Long id, Item updatedItem, Long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return itemRepository.findById(id).map(existing -> {
+                    if (expectedVersion != null && existing.getVersion() != expectedVersion) {
+                        throw new ObjectOptimisticLockingFailureException(Item.class, id);
+                    }
+                    updatedItem.setId(id);
+                    // The merge checks this version again in its UPDATE ... WHERE version = ?
+                    updatedItem.setVersion(existing.getVersion());
+                    ItemDTO saved = convertToDTO(itemRepository.save(updatedItem));
+                    publishChanges(List.of(new ItemChangeDTO(ItemChangeDTO.Type.UPDATED, id, saved)));
+                    return saved;
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedVersion != null || attempt >= UNCONDITIONAL_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
     }
     public boolean existsById(Long id) {
         return itemRepository.existsById(id);
     }
 
+    @CachePut(cacheNames = CacheConfig.ITEMS_CACHE, key = "#result.id")
     public ItemDTO save(ItemDTO itemDTO) {
         Item item=convertToEntity(itemDTO);
-        Item savedItem=itemRepository.save(item);
-        return convertToDTO(savedItem);
+        ItemDTO savedItem=convertToDTO(itemRepository.save(item));
+        publishChanges(List.of(new ItemChangeDTO(ItemChangeDTO.Type.CREATED, savedItem.getId(), savedItem)));
+        return savedItem;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.ITEMS_CACHE, key = "#id")
     public ItemDTO deleteById(Long id) {
         Item item=itemRepository.findById(id).orElseThrow(()->new RuntimeException("Item not found"));
         itemRepository.deleteById(id);
-        return convertToDTO(item);
+        ItemDTO deleted = convertToDTO(item);
+        publishChanges(List.of(new ItemChangeDTO(ItemChangeDTO.Type.DELETED, id, deleted)));
+        return deleted;
     }
 
-
-
-    private List<List<Long>> partitionList(List<Long> items, int numberOfPartitions) {
-        List<List<Long>> partitions = new ArrayList<>();
-
-        int totalItems = items.size();
-
-        if (totalItems == 0 || numberOfPartitions <= 0) {
-            return partitions;
+    // One DELETE statement; returns false when there was nothing to delete
+    @CacheEvict(cacheNames = CacheConfig.ITEMS_CACHE, key = "#id")
+    public boolean deleteItem(Long id) {
+        if (itemRepository.deleteAllByIdIn(List.of(id)) == 0) {
+            return false;
         }
+        publishChanges(List.of(new ItemChangeDTO(ItemChangeDTO.Type.DELETED, id, null)));
+        return true;
+    }
 
-        int partitionSize = Math.max(1, totalItems / numberOfPartitions);
+    /**
+     * Applies the non-null fields of every update in one transaction. Each chunk of IDs is loaded
+     * with one query; dirty checking then writes the changes as batched UPDATEs on flush.
+     */
+    @Transactional
+    public List<ItemOperationResultDTO> updateItems(List<ItemDTO> updates) {
+        List<ItemOperationResultDTO> results = new ArrayList<>(updates.size());
+        Map<Integer, Item> updated = new HashMap<>();
+        for (int from = 0; from < updates.size(); from += BULK_CHUNK_SIZE) {
+            List<ItemDTO> chunk = updates.subList(from, Math.min(from + BULK_CHUNK_SIZE, updates.size()));
+            List<Long> ids = chunk.stream().map(ItemDTO::getId).filter(Objects::nonNull).toList();
+            Map<Long, Item> existing = new HashMap<>(ids.size() * 2);
+            for (Item item : itemRepository.findAllById(ids)) {
+                existing.put(item.getId(), item);
+            }
+
+            for (ItemDTO update : chunk) {
+                if (update.getId() == null) {
+                    results.add(new ItemOperationResultDTO(null, Outcome.INVALID, null));
+                    continue;
+                }
+                Item item = existing.get(update.getId());
+                if (item == null) {
+                    results.add(new ItemOperationResultDTO(update.getId(), Outcome.NOT_FOUND, null));
+                } else if (update.getVersion() != null && update.getVersion() != item.getVersion()) {
+                    results.add(new ItemOperationResultDTO(item.getId(), Outcome.CONFLICT, convertToDTO(item)));
+                } else {
+                    applyChanges(item, update);
+                    results.add(new ItemOperationResultDTO(item.getId(), Outcome.UPDATED, null));
+                    updated.put(results.size() - 1, item);
+                }
+            }
+
+            // Through the repository, so a version conflict surfaces as OptimisticLockingFailureException
+            itemRepository.flush();
+            // The flush bumped the versions, so the returned items are built only now
+            List<ItemDTO> updatedItems = new ArrayList<>(updated.size());
+            updated.forEach((index, item) -> {
+                ItemDTO itemDTO = convertToDTO(item);
+                results.get(index).setItem(itemDTO);
+                updatedItems.add(itemDTO);
+            });
+            publishChanges(changesOf(ItemChangeDTO.Type.UPDATED, updatedItems));
+            updated.clear();
+            entityManager.clear();
+            evictCachedItems(existing.keySet());
+        }
+        return results;
+    }
 
-        for (int i = 0; i < totalItems; i += partitionSize) {
-            int end = Math.min(i + partitionSize, totalItems);
-            partitions.add(new ArrayList<>(items.subList(i, end)));
+    // One existence query and one DELETE per chunk, in a single transaction
+    @Transactional
+    public List<ItemOperationResultDTO> deleteItems(List<Long> ids) {
+        List<ItemOperationResultDTO> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+            Set<Long> existing = new HashSet<>(itemRepository.findExistingIds(chunk));
+            if (!existing.isEmpty()) {
+                itemRepository.deleteAllByIdIn(existing);
+                evictCachedItems(existing);
+                publishChanges(existing.stream().map(id -> new ItemChangeDTO(ItemChangeDTO.Type.DELETED, id, null)).toList());
+            }
+            for (Long id : chunk) {
+                results.add(new ItemOperationResultDTO(id, existing.contains(id) ? Outcome.DELETED : Outcome.NOT_FOUND, null));
+            }
         }
+        return results;
+    }
 
-        return partitions;
+    private void applyChanges(Item item, ItemDTO update) {
+        if (update.getName() != null) {
+            item.setName(update.getName());
+        }
+        if (update.getDescription() != null) {
+            item.setDescription(update.getDescription());
+        }
+        if (update.getStatus() != null) {
+            item.setStatus(update.getStatus());
+        }
+        if (update.getEmail() != null) {
+            item.setEmail(update.getEmail());
+        }
     }
 
     /**
@@ -107,70 +400,364 @@ public class ItemService {
      * Examine how errors are handled and propagated
      * Consider the interaction between Spring's @Async and CompletableFuture
      */
-    @Async
+    // Returns only this run's results, at most max-retained-results of them; nothing is kept once the caller has them
+    @Async("processingExecutor")
     public CompletableFuture<List<ItemDTO>> processItemsAsync() {
-        List<Long> itemIds = itemRepository.findAllIds();
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        return processCapped().thenApply(ProcessingJob::getResults);
+    }
 
-            List<List<Long>> partitions = partitionList(itemIds, NUMBER_OF_THREADS);
+    // The same run, handing back the finished job so the caller can tell how many results were left out
+    @Async("processingExecutor")
+    public CompletableFuture<ProcessingJob> processItemsJobAsync() {
+        return processCapped();
+    }
 
-        for (List<Long> partition : partitions) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                List<ItemDTO> localProcessed = new ArrayList<>();
+    private CompletableFuture<ProcessingJob> processCapped() {
+        ProcessingJob job = new ProcessingJob(new InMemoryResultSink(maxRetainedResults));
+        return runProcessing(job).thenApply(done -> job);
+    }
 
-                for (Long id : partition) {
-                    try {
-                        Thread.sleep(100);
-                        Item item = itemRepository.findById(id).orElse(null);
-                        if (item == null) continue;
+    /*
+     * Runs before processingExecutor is closed, since this service depends on it. Runs still going fail and
+     * keep the watermark where it was; the next run after a restart picks up the chunks they never handed out.
+     */
+    @PreDestroy
+    public void stopProcessing() {
+        stopping = true;
+    }
 
-                        synchronized (this) {
-                            processedCount++;
-                        }
+    // The next run processes every item again
+    public void resetProcessingWatermark() {
+        processingWatermark.set(null);
+    }
 
+    /**
+     * Starts a processing run in the background and returns immediately; progress and results
+     * are read back through getProcessingJob. Empty when the job registry is full of running jobs.
+     */
+    public Optional<ProcessingJobDTO> submitProcessingJob() {
+        ProcessingResultSink results = spillResults
+                ? new SpillingResultSink(maxRetainedResults)
+                : new InMemoryResultSink(maxRetainedResults);
+        return jobRegistry.register(results).map(job -> {
+            // The ID queries run on the executor too, so the caller's thread never touches the database
+            CompletableFuture.supplyAsync(() -> runProcessing(job), executor)
+                    .thenCompose(run -> run)
+                    .whenComplete((done, e) -> job.finish(e));
+            return toJobDTO(job, 0, 0);
+        });
+    }
 
-                        item.setStatus("PROCESSED");
-                        itemRepository.save(item);
+    public Optional<ProcessingJobDTO> getProcessingJob(String jobId, int page, int size) {
+        return jobRegistry.find(jobId).map(job -> toJobDTO(job, Math.max(0, page), Math.min(Math.max(0, size), MAX_PAGE_SIZE)));
+    }
 
-                        ItemDTO itemDTO=convertToDTO(item);
-                        itemDTO.setProcessedBy(Thread.currentThread().getName());
+    private ProcessingJobDTO toJobDTO(ProcessingJob job, int page, int size) {
+        return ProcessingJobDTO.builder()
+                .jobId(job.getId())
+                .status(job.getStatus().name())
+                .createdAt(job.getCreatedAt())
+                .total(job.getTotal())
+                .processed(job.getProcessed())
+                .failed(job.getFailed())
+                .skipped(job.getSkipped())
+                .error(job.getError())
+                .deadLetters(job.getDeadLetters())
+                .retainedResults(job.getRetainedResults())
+                .droppedResults(job.getDroppedResults())
+                .page(page)
+                .size(size)
+                .results(size == 0 ? List.of() : job.getResults(page, size))
+                .build();
+    }
 
-                        localProcessed.add(itemDTO);
-                    } catch (InterruptedException e) {
-                        System.out.println("Error: " + e.getMessage());
+    /*
+     * Non-blocking: the returned future completes once every chunk has been written back.
+     * `workers` tasks pull chunks from one shared AdaptiveChunkQueue until it is empty, so a slow
+     * chunk only delays its own worker while the others keep draining the queue.
+     */
+    private CompletableFuture<Void> runProcessing(ProcessingJob job) {
+        Timer.Sample run = Timer.start(meterRegistry);
+        Instant runStart = Instant.now();
+        Instant oldestOpenWrite = openWrites.oldestSince(runStart);
+        Instant since = processingWatermark.get();
+        List<Long> retried = List.copyOf(retryIds);
+        long upTo = transientRetry.call(() -> databaseLimiter.call(itemRepository::findMaxId)).orElse(0L);
+        long total;
+        AdaptiveChunkQueue.IdPages pages;
+        if (since == null) {
+            total = transientRetry.call(() -> databaseLimiter.call(() -> itemRepository.countIdsUpTo(upTo)));
+            pages = keysetPages((afterId, limit) -> itemRepository.findIdsAfter(afterId, upTo, limit));
+        } else {
+            // Dead letters first, minus those the modified-since pages return anyway, so no ID is handed out twice
+            long[] retriedOnly = findIdsNotModifiedSince(retried, since);
+            total = retriedOnly.length + transientRetry.call(() -> databaseLimiter.call(() -> itemRepository.countIdsModifiedSince(since, upTo)));
+            pages = AdaptiveChunkQueue.IdPages.of(retriedOnly)
+                    .andThen(modifiedSincePages(since, upTo));
+        }
+        job.start((int) Math.min(Integer.MAX_VALUE, total));
+        Set<Long> failedIds = ConcurrentHashMap.newKeySet();
+
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(pages, total, workers, TimeUnit.MILLISECONDS.toNanos(targetChunkMillis));
+        AtomicReference<RuntimeException> firstFailure = new AtomicReference<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+
+        for (int i = 0; i < workers; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                List<Long> chunk;
+                while (!stopping && !Thread.currentThread().isInterrupted() && !(chunk = queue.nextChunk()).isEmpty()) {
+                    long start = System.nanoTime();
+                    try {
+                        processChunk(job, chunk, failedIds);
+                    } catch (RuntimeException e) {
+                        // Item and database failures are dead-lettered inside processChunk; this is anything
+                        // unexpected beyond that. Keep draining so it doesn't strand the rest of the run
+                        firstFailure.compareAndSet(null, e);
                     }
+                    queue.recordLatency(chunk.size(), System.nanoTime() - start);
                 }
-
-                synchronized (processedItems) {
-                    processedItems.addAll(localProcessed);
+                if (stopping) {
+                    firstFailure.compareAndSet(null, new IllegalStateException("Processing was stopped"));
+                } else if (Thread.currentThread().isInterrupted()) {
+                    // Shutdown: the chunks left in the queue are never handed out, so the run fails and
+                    // keeps the watermark where it was; the next run picks them up
+                    firstFailure.compareAndSet(null, new IllegalStateException("Processing was interrupted"));
                 }
-            }, executor);
+            }, executor));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenRun(() -> {
+                    if (firstFailure.get() != null) {
+                        throw firstFailure.get();
+                    }
+                })
+                .whenComplete((done, e) -> {
+                    if (e == null) {
+                        // Dead letters don't hold the watermark back; they are carried over to the next run instead
+                        if (since == null) {
+                            retryIds.clear();
+                        } else {
+                            retried.forEach(retryIds::remove);
+                        }
+                        retryIds.addAll(failedIds);
+                        Instant watermark = oldestOpenWrite.minusMillis(watermarkOverlapMillis);
+                        processingWatermark.accumulateAndGet(watermark, (current, next) -> current == null || next.isAfter(current) ? next : current);
+                    }
+                    String outcome = e != null ? "failed" : failedIds.isEmpty() ? "completed" : "partial";
+                    run.stop(meterRegistry.timer("items.processing.run", "outcome", outcome));
+                    job.finish(e);
+                });
+    }
 
-            futures.add(future);
+    // Walks the IDs in primary-key order, one ID_PAGE_SIZE query at a time, resuming after the last key seen
+    private AdaptiveChunkQueue.IdPages keysetPages(BiFunction<Long, Limit, List<Long>> query) {
+        long[] afterId = {Long.MIN_VALUE};
+        return maxSize -> {
+            List<Long> page = transientRetry.call(() -> databaseLimiter.call(() -> query.apply(afterId[0], Limit.of(maxSize))));
+            long[] ids = page.stream().mapToLong(Long::longValue).toArray();
+            if (ids.length > 0) {
+                afterId[0] = ids[ids.length - 1];
+            }
+            return ids;
+        };
+    }
+
+    // Walks the rows changed after since in (lastModified, id) order, resuming after the last key seen
+    private AdaptiveChunkQueue.IdPages modifiedSincePages(Instant since, long upTo) {
+        Instant[] afterModified = {since};
+        long[] afterId = {Long.MAX_VALUE};
+        return maxSize -> {
+            List<ItemRepository.ModifiedKey> page = transientRetry.call(() -> databaseLimiter.call(
+                    () -> itemRepository.findModifiedAfter(afterModified[0], afterId[0], upTo, Limit.of(maxSize))));
+            long[] ids = new long[page.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = page.get(i).getId();
+            }
+            if (ids.length > 0) {
+                afterModified[0] = page.get(ids.length - 1).getLastModified();
+                afterId[0] = ids[ids.length - 1];
+            }
+            return ids;
+        };
+    }
+
+    private long[] findIdsNotModifiedSince(List<Long> ids, Instant since) {
+        List<Long> found = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+            found.addAll(transientRetry.call(() -> databaseLimiter.call(() -> itemRepository.findIdsNotModifiedSince(chunk, since))));
+        }
+        return found.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * One query loads the chunk, the processor runs per item, and one JDBC batch writes the chunk back.
+     * Failures stay inside the chunk: an item whose processor throws or times out is dead-lettered on its
+     * own, and if a database call still fails after TransientRetry, the items it covered are dead-lettered.
+     */
+    private void processChunk(ProcessingJob job, List<Long> chunk, Set<Long> failedIds) {
+        Timer.Sample chunkSample = Timer.start(meterRegistry);
+        List<ItemFailureDTO> failures = new ArrayList<>();
+        try {
+            List<Item> items;
+            try {
+                items = transientRetry.call(() -> databaseLimiter.call(() -> itemRepository.findAllById(chunk)));
+            } catch (RuntimeException e) {
+                chunk.forEach(id -> failures.add(new ItemFailureDTO(id, failureReason(e))));
+                return;
+            }
+
+            List<Item> processedItems = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                try {
+                    processWithTimeout(item);
+                } catch (InterruptedException e) {
+                    // Shutdown: stop here, the rest of the chunk is retried by the next run
+                    Thread.currentThread().interrupt();
+                    items.subList(i, items.size()).forEach(rest -> failures.add(new ItemFailureDTO(rest.getId(), "interrupted")));
+                    break;
+                } catch (TimeoutException e) {
+                    failures.add(new ItemFailureDTO(item.getId(), "timed out after " + itemTimeoutMillis + " ms"));
+                    continue;
+                } catch (RuntimeException e) {
+                    failures.add(new ItemFailureDTO(item.getId(), failureReason(e)));
+                    continue;
+                }
+                processedItems.add(item);
+            }
+            if (processedItems.isEmpty()) {
+                return;
+            }
+
+            // Only rows still at the version loaded above are written; no row locks are held while items are processed
+            Set<Long> conflicts;
+            try {
+                conflicts = new HashSet<>(transientRetry.call(() -> databaseLimiter.call(
+                        () -> itemRepository.updateStatusIfUnchanged(processedItems, PROCESSED_STATUS))));
+            } catch (RuntimeException e) {
+                // Nothing of this chunk was written back
+                processedItems.forEach(item -> failures.add(new ItemFailureDTO(item.getId(), failureReason(e))));
+                return;
+            }
+
+            // A conflicting row changed after it was loaded. An entity write stamped lastModified, so the next
+            // incremental run picks it up; a concurrent run already processed it; or it was deleted. Either way, skip it
+            List<Long> processedIds = new ArrayList<>(processedItems.size());
+            List<ItemDTO> localProcessed = new ArrayList<>(processedItems.size());
+            for (Item item : processedItems) {
+                if (conflicts.contains(item.getId())) {
+                    continue;
+                }
+                item.setStatus(PROCESSED_STATUS);
+                item.setVersion(item.getVersion() + 1);
+                processedIds.add(item.getId());
+
+                ItemDTO itemDTO=convertToDTO(item);
+                itemDTO.setProcessedBy(Thread.currentThread().getName());
+                localProcessed.add(itemDTO);
+            }
+            evictCachedItems(processedIds);
+            publishChanges(changesOf(ItemChangeDTO.Type.PROCESSED, localProcessed));
+
+            job.recordProcessed(localProcessed);
+            meterRegistry.counter("items.processing.items", "outcome", "processed").increment(processedIds.size());
+            if (!conflicts.isEmpty()) {
+                job.recordSkipped(conflicts.size());
+                meterRegistry.counter("items.processing.items", "outcome", "skipped").increment(conflicts.size());
+            }
+        } finally {
+            if (!failures.isEmpty()) {
+                failures.forEach(failure -> failedIds.add(failure.getId()));
+                job.recordFailed(failures);
+                meterRegistry.counter("items.processing.items", "outcome", "failed").increment(failures.size());
+            }
+            chunkSample.stop(meterRegistry.timer("items.processing.chunk"));
         }
+    }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    private void processWithTimeout(Item item) throws InterruptedException, TimeoutException {
+        if (itemTimeoutMillis <= 0) {
+            itemProcessor.process(item);
+            return;
+        }
+        Future<?> task = itemExecutor.submit(() -> {
+            itemProcessor.process(item);
+            return null;
+        });
+        try {
+            task.get(itemTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
 
-        return CompletableFuture.completedFuture(processedItems);
+    private static String failureReason(Throwable e) {
+        return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
     }
 
+    /*
+     * Bulk updates bypass the @CacheEvict annotations, so the rows they touched are evicted by hand, after
+     * the commit: evicted earlier, a findById in between would read the old row and cache it again.
+     */
+    private void evictCachedItems(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.ITEMS_CACHE);
+        if (cache == null) {
+            return;
+        }
+        List<Long> evicted = List.copyOf(ids);
+        afterCommit(() -> evicted.forEach(cache::evict));
+    }
 
+    /**
+     * Copies are persisted in chunks of INSERT_BATCH_SIZE: each chunk is flushed as one JDBC batch
+     * and then cleared, so the persistence context stays small no matter how many copies are requested.
+     */
+    @Transactional
     public ItemDTO saveItemRepeatable(ItemRepeatableDTO itemRepeatable) {
         ItemDTO itemToSave = itemRepeatable.getItem();
-        Item copy=convertToEntity(itemToSave);
+        List<Item> batch = new ArrayList<>(INSERT_BATCH_SIZE);
         for(int i = 0; i < itemRepeatable.getCount(); i++){
-            Item item = Item.builder()
-                    .description(copy.getDescription())
-                    .email(copy.getEmail())
-                    .name(copy.getName())
-                    .status(copy.getStatus())
-                    .build();
-            itemRepository.save(item);
+            batch.add(itemMapper.toNewEntity(itemRepeatable));
+            if (batch.size() == INSERT_BATCH_SIZE) {
+                flushBatch(batch);
+                batch = new ArrayList<>(INSERT_BATCH_SIZE);
+            }
         }
+        flushBatch(batch);
 
+        return itemToSave;
+    }
 
+    // Inserts all items in one transaction, as JDBC batches of INSERT_BATCH_SIZE; the group commit of ItemIngestBuffer
+    @Transactional
+    public List<ItemDTO> saveAll(List<ItemDTO> items) {
+        List<ItemDTO> saved = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += INSERT_BATCH_SIZE) {
+            List<Item> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+            for (ItemDTO item : items.subList(from, Math.min(from + INSERT_BATCH_SIZE, items.size()))) {
+                batch.add(convertToEntity(item));
+            }
+            saved.addAll(flushBatch(batch));
+        }
+        return saved;
+    }
 
-        return itemToSave;
+    private List<ItemDTO> flushBatch(List<Item> batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        List<ItemDTO> created = itemRepository.saveAll(batch).stream().map(this::convertToDTO).toList();
+        entityManager.flush();
+        entityManager.clear();
+        publishChanges(changesOf(ItemChangeDTO.Type.CREATED, created));
+        return created;
     }
 }
-
@@ -0,0 +1,76 @@
+package com.siemens.internship.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Bulk bootstrap from a CSV snapshot. When items.bootstrap.snapshot points at a CSV file and the item
+ * table is empty, the snapshot is loaded with one INSERT ... SELECT FROM CSVREAD before the
+ * application reports ready, instead of through a million POSTs. With a file-backed database the
+ * rows then persist and later starts skip the load. Parsing and indexing make this take tens of
+ * seconds per million rows; ItemSnapshotRestorer restores a database file snapshot in seconds.
+ */
+@Slf4j
+@Component
+public class ItemSnapshotLoader implements ApplicationRunner {
+    private static final String COLUMNS = "id, name, description, status, email, last_modified, version";
+    // Headroom over the sequence's allocationSize, so the first pooled block starts past the loaded IDs
+    private static final int SEQUENCE_HEADROOM = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${items.bootstrap.snapshot:}")
+    private String snapshot = "";
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Database files are restored by ItemSnapshotRestorer before the pool opens
+        if (snapshot.isBlank() || ItemSnapshotRestorer.isDatabaseFile(snapshot)) {
+            return;
+        }
+        Path file = Path.of(snapshot);
+        if (!Files.isReadable(file)) {
+            throw new IllegalStateException("Snapshot " + file.toAbsolutePath() + " is not readable");
+        }
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Long.class) > 0) {
+            log.info("Item table is not empty, skipping snapshot {}", file);
+            return;
+        }
+        long start = System.nanoTime();
+        int rows = load(file);
+        log.info("Loaded {} items from {} in {} ms", rows, file, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Expects the header written by write(): ID, NAME, DESCRIPTION, STATUS, EMAIL, LAST_MODIFIED, VERSION
+    public int load(Path file) {
+        int rows = jdbcTemplate.update("INSERT INTO item (" + COLUMNS + ") SELECT " + COLUMNS
+                + " FROM CSVREAD(" + literal(file) + ")");
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM item", Long.class);
+        jdbcTemplate.execute("ALTER SEQUENCE item_seq RESTART WITH " + (maxId + SEQUENCE_HEADROOM));
+        return rows;
+    }
+
+    // A database file snapshot for ItemSnapshotRestorer; needs a file database
+    public void backup(Path file) {
+        jdbcTemplate.execute("BACKUP TO " + literal(file));
+    }
+
+    public int write(Path file) {
+        return jdbcTemplate.queryForObject("CALL CSVWRITE(" + literal(file) + ", 'SELECT " + COLUMNS + " FROM item ORDER BY id')",
+                Integer.class);
+    }
+
+    // H2 resolves CSV table functions while preparing the statement, so the file name cannot be a bind parameter
+    private static String literal(Path file) {
+        return "'" + file.toAbsolutePath().toString().replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,102 @@
+package com.siemens.internship.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Fast path of the snapshot bootstrap. When items.bootstrap.snapshot is an H2 database file (an items.mv.db
+ * copied from a stopped instance, or the zip written by BACKUP TO) and the file database of
+ * spring.datasource.url does not exist yet, the snapshot is put in its place before the connection pool
+ * opens. H2 then opens it like any database it wrote itself: no row is inserted and no index is built,
+ * which is where a CSV load spends its time.
+ */
+@Slf4j
+@Component
+public class ItemSnapshotRestorer implements BeanPostProcessor {
+    private static final String FILE_URL = "jdbc:h2:file:";
+    private static final String MV_STORE = ".mv.db";
+
+    private final String snapshot;
+    private final String url;
+    private boolean restored;
+
+    public ItemSnapshotRestorer(@Value("${items.bootstrap.snapshot:}") String snapshot,
+                                @Value("${spring.datasource.url:}") String url) {
+        this.snapshot = snapshot;
+        this.url = url;
+    }
+
+    // CSV snapshots are left to ItemSnapshotLoader
+    public static boolean isDatabaseFile(String snapshot) {
+        return snapshot.endsWith(MV_STORE) || snapshot.endsWith(".zip");
+    }
+
+    // Runs before the DataSource is initialized, so before the pool or Hibernate has opened a connection
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !restored) {
+            restored = true;
+            restore();
+        }
+        return bean;
+    }
+
+    private void restore() {
+        if (!isDatabaseFile(snapshot)) {
+            return;
+        }
+        Path file = Path.of(snapshot);
+        if (!Files.isReadable(file)) {
+            throw new IllegalStateException("Snapshot " + file.toAbsolutePath() + " is not readable");
+        }
+        if (!url.startsWith(FILE_URL)) {
+            throw new IllegalStateException("Snapshot " + file + " needs a file database, spring.datasource.url is " + url);
+        }
+        // jdbc:h2:file:./data/items;CACHE_SIZE=... is stored as ./data/items.mv.db
+        int settings = url.indexOf(';');
+        Path database = Path.of(url.substring(FILE_URL.length(), settings < 0 ? url.length() : settings)
+                .replaceFirst("^~", System.getProperty("user.home"))).toAbsolutePath().normalize();
+        Path target = database.resolveSibling(database.getFileName() + MV_STORE);
+        if (Files.exists(target)) {
+            log.info("Database {} exists, skipping snapshot {}", target, file);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(target.getParent());
+            if (snapshot.endsWith(MV_STORE)) {
+                Files.copy(file, target);
+            } else {
+                unzip(file, target);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not restore snapshot " + file, e);
+        }
+        log.info("Restored {} from {} in {} ms", target, file, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // A BACKUP TO zip holds the database as a single <name>.mv.db entry, whatever the database was called
+    private static void unzip(Path zip, Path target) throws IOException {
+        try (InputStream in = Files.newInputStream(zip); ZipInputStream entries = new ZipInputStream(in)) {
+            for (ZipEntry entry; (entry = entries.getNextEntry()) != null; ) {
+                if (entry.getName().endsWith(MV_STORE)) {
+                    Files.copy(entries, target);
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("Snapshot " + zip + " holds no " + MV_STORE + " file");
+    }
+}
@@ -0,0 +1,73 @@
+package com.siemens.internship.service;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each open transaction first wrote an item. lastModified is stamped when Hibernate
+ * flushes, not when the transaction commits, so a long transaction (a large saveItemRepeatable, a bulk
+ * PATCH, a slow group commit) can commit rows stamped well before a run that overlaps it. A processing
+ * run takes its watermark no later than the oldest write still open when it starts, so such rows are
+ * still newer than the watermark once they commit.
+ */
+@Component
+public class OpenItemWrites {
+    private final Map<Object, Instant> open = new ConcurrentHashMap<>();
+
+    // Called on every insert and update of an item; only the first one of a transaction is recorded
+    public void onWrite() {
+        // Outside a Spring transaction the write commits as soon as it is flushed
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        Object transaction = new Object();
+        TransactionSynchronizationManager.bindResource(this, transaction);
+        open.put(transaction, Instant.now());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                open.remove(transaction);
+                TransactionSynchronizationManager.unbindResourceIfPossible(OpenItemWrites.this);
+            }
+        });
+    }
+
+    // The first write of the oldest transaction still open, or now when there is none
+    public Instant oldestSince(Instant now) {
+        Instant oldest = now;
+        for (Instant started : open.values()) {
+            if (started.isBefore(oldest)) {
+                oldest = started;
+            }
+        }
+        return oldest;
+    }
+
+    /*
+     * Entity listener of Item. Hibernate creates listeners through Spring, which hands this one the shared
+     * instance; JPA test slices have none, and then there is nothing to track.
+     */
+    public static class Listener {
+        private final OpenItemWrites openWrites;
+
+        public Listener(ObjectProvider<OpenItemWrites> openWrites) {
+            this.openWrites = openWrites.getIfAvailable();
+        }
+
+        @PrePersist
+        @PreUpdate
+        void onWrite(Object item) {
+            if (openWrites != null) {
+                openWrites.onWrite();
+            }
+        }
+    }
+}
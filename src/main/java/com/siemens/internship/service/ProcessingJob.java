@@ -0,0 +1,134 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemFailureDTO;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress and results of one processing run. Counters are updated by the processing workers
+ * while pollers read them, so they are atomics. Results go to the run's own ProcessingResultSink.
+ * Items that could not be processed are kept as dead letters; a run with any of them ends PARTIAL.
+ * Items skipped because another writer changed them first are only counted.
+ */
+public class ProcessingJob {
+    public enum Status { RUNNING, COMPLETED, PARTIAL, FAILED }
+
+    // Failures past this are still counted in failed, but their IDs and reasons are not kept
+    static final int MAX_DEAD_LETTERS = 10_000;
+
+    private final String id = UUID.randomUUID().toString();
+    private final Instant createdAt = Instant.now();
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final ProcessingResultSink results;
+    private final List<ItemFailureDTO> deadLetters = new ArrayList<>();
+    private volatile int total;
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+
+    public ProcessingJob(ProcessingResultSink results) {
+        this.results = results;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getProcessed() {
+        return processed.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+
+    public void start(int totalItems) {
+        total = totalItems;
+    }
+
+    public void recordProcessed(List<ItemDTO> items) {
+        results.accept(items);
+        processed.addAndGet(items.size());
+    }
+
+    public void recordFailed(List<ItemFailureDTO> failures) {
+        failed.addAndGet(failures.size());
+        synchronized (deadLetters) {
+            int room = MAX_DEAD_LETTERS - deadLetters.size();
+            deadLetters.addAll(failures.size() <= room ? failures : failures.subList(0, Math.max(0, room)));
+        }
+    }
+
+    public void recordSkipped(int items) {
+        skipped.addAndGet(items);
+    }
+
+    public List<ItemFailureDTO> getDeadLetters() {
+        synchronized (deadLetters) {
+            return List.copyOf(deadLetters);
+        }
+    }
+
+    // Only the first call wins, so a late failure can't overwrite a completed job or vice versa
+    public synchronized void finish(Throwable cause) {
+        if (isFinished()) {
+            return;
+        }
+        if (cause != null) {
+            error = cause.getMessage();
+            status = Status.FAILED;
+        } else {
+            status = failed.get() > 0 ? Status.PARTIAL : Status.COMPLETED;
+        }
+    }
+
+    public List<ItemDTO> getResults() {
+        return results.read(0, Integer.MAX_VALUE);
+    }
+
+    public List<ItemDTO> getResults(int page, int size) {
+        return results.read((int) Math.min((long) page * size, Integer.MAX_VALUE), size);
+    }
+
+    public int getRetainedResults() {
+        return results.retained();
+    }
+
+    public int getDroppedResults() {
+        return results.dropped();
+    }
+
+    public void close() {
+        results.close();
+    }
+}
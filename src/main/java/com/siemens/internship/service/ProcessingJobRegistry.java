@@ -0,0 +1,49 @@
+package com.siemens.internship.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded store of processing jobs, kept in submission order. When full, the oldest finished job
+ * is evicted and its results released; running jobs are never evicted, so a registry full of
+ * running jobs rejects new ones.
+ */
+@Component
+public class ProcessingJobRegistry {
+    @Value("${items.processing.max-jobs:100}")
+    private int maxJobs = 100;
+
+    private final Map<String, ProcessingJob> jobs = new LinkedHashMap<>();
+
+    public synchronized Optional<ProcessingJob> register(ProcessingResultSink results) {
+        if (jobs.size() >= maxJobs && !evictOldestFinished()) {
+            results.close();
+            return Optional.empty();
+        }
+        ProcessingJob job = new ProcessingJob(results);
+        jobs.put(job.getId(), job);
+        return Optional.of(job);
+    }
+
+    public synchronized Optional<ProcessingJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private boolean evictOldestFinished() {
+        Iterator<ProcessingJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ProcessingJob job = iterator.next();
+            if (job.isFinished()) {
+                iterator.remove();
+                job.close();
+                return true;
+            }
+        }
+        return false;
+    }
+}
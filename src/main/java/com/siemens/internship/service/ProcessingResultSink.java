@@ -0,0 +1,26 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+
+import java.util.List;
+
+/**
+ * Where one processing run puts its results. Every run gets its own sink, so nothing is shared
+ * between runs. Implementations decide how much is kept and where. Workers call accept concurrently.
+ */
+public interface ProcessingResultSink extends AutoCloseable {
+    void accept(List<ItemDTO> results);
+
+    /** Up to {@code limit} retained results starting at {@code offset}, in the order they were accepted. */
+    List<ItemDTO> read(int offset, int limit);
+
+    /** Results that can still be read back. */
+    int retained();
+
+    /** Results that were accepted but not kept. */
+    int dropped();
+
+    /** Releases whatever the sink holds; the job registry calls this when a job is evicted. */
+    @Override
+    void close();
+}
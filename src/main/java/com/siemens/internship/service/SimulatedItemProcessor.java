@@ -0,0 +1,18 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DAO.Item;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SimulatedItemProcessor implements ItemProcessor {
+    @Value("${items.processing.simulated-delay-ms:100}")
+    private long delayMillis;
+
+    @Override
+    public void process(Item item) throws InterruptedException {
+        if (delayMillis > 0) {
+            Thread.sleep(delayMillis);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.siemens.internship.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siemens.internship.model.DTO.ItemDTO;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the first {@code inMemoryLimit} results on the heap and appends everything after that
+ * to a temp file as NDJSON, so a large run costs disk instead of heap. The file is deleted on close.
+ */
+public class SpillingResultSink implements ProcessingResultSink {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final InMemoryResultSink head;
+    private final int inMemoryLimit;
+    private Path spillFile;
+    private BufferedWriter writer;
+    private int spilled;
+
+    public SpillingResultSink(int inMemoryLimit) {
+        this.inMemoryLimit = inMemoryLimit;
+        this.head = new InMemoryResultSink(inMemoryLimit);
+    }
+
+    @Override
+    public synchronized void accept(List<ItemDTO> chunk) {
+        int room = Math.max(0, inMemoryLimit - head.retained());
+        if (chunk.size() <= room) {
+            head.accept(chunk);
+            return;
+        }
+        head.accept(chunk.subList(0, room));
+        try {
+            BufferedWriter out = writer();
+            for (ItemDTO item : chunk.subList(room, chunk.size())) {
+                out.write(OBJECT_MAPPER.writeValueAsString(item));
+                out.newLine();
+                spilled++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill processing results to " + spillFile, e);
+        }
+    }
+
+    @Override
+    public synchronized List<ItemDTO> read(int offset, int limit) {
+        List<ItemDTO> page = new ArrayList<>(head.read(offset, limit));
+        int fileOffset = Math.max(0, offset - inMemoryLimit);
+        int wanted = limit - page.size();
+        if (wanted <= 0 || spilled == 0 || fileOffset >= spilled) {
+            return page;
+        }
+        try {
+            writer.flush();
+            try (BufferedReader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < fileOffset; i++) {
+                    reader.readLine();
+                }
+                String line;
+                while (wanted-- > 0 && (line = reader.readLine()) != null) {
+                    page.add(OBJECT_MAPPER.readValue(line, ItemDTO.class));
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt processing result in " + spillFile, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read processing results from " + spillFile, e);
+        }
+        return page;
+    }
+
+    @Override
+    public synchronized int retained() {
+        return head.retained() + spilled;
+    }
+
+    @Override
+    public int dropped() {
+        return 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        head.close();
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            writer.close();
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete " + spillFile, e);
+        } finally {
+            spillFile = null;
+            writer = null;
+            spilled = 0;
+        }
+    }
+
+    private BufferedWriter writer() throws IOException {
+        if (writer == null) {
+            spillFile = Files.createTempFile("item-processing-", ".ndjson");
+            spillFile.toFile().deleteOnExit();
+            writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+        }
+        return writer;
+    }
+}
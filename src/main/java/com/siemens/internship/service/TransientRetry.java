@@ -0,0 +1,66 @@
+package com.siemens.internship.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry with exponential backoff and jitter for database calls of processing runs. Only
+ * errors that can succeed on a second try are retried: lock and query timeouts, deadlocks, and not
+ * getting a connection in time. Anything else, such as a constraint violation, fails on the first attempt.
+ */
+@Component
+public class TransientRetry {
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    @Autowired
+    public TransientRetry(@Value("${items.processing.max-attempts:3}") int maxAttempts,
+                          @Value("${items.processing.retry-backoff-ms:100}") long backoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+    }
+
+    public <T> T call(Supplier<T> databaseCall) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return databaseCall.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isTransient(e)) {
+                    throw e;
+                }
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    public static boolean isTransient(Throwable e) {
+        // A version conflict is a ConcurrencyFailureException too, but repeating the same stale write can't succeed
+        if (e instanceof OptimisticLockingFailureException) {
+            return false;
+        }
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    // backoff, 2x backoff, 4x backoff, ... plus up to 50% jitter so retrying workers don't collide again
+    private void backOff(int attempt, RuntimeException cause) {
+        long delay = backoffMillis << Math.min(attempt - 1, 16);
+        delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
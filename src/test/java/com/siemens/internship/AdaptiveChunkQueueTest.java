@@ -0,0 +1,210 @@
+package com.siemens.internship;
+
+import com.siemens.internship.service.AdaptiveChunkQueue;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveChunkQueueTest {
+
+    private static List<Long> ids(int count) {
+        return LongStream.rangeClosed(1, count).boxed().toList();
+    }
+
+    @Test
+    void shouldHandOutEveryIdExactlyOnce_WhenDrainedConcurrently() {
+        List<Long> ids = ids(10_000);
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(ids, 8, TimeUnit.MILLISECONDS.toNanos(1));
+        List<Long> claimed = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                List<Long> chunk;
+                while (!(chunk = queue.nextChunk()).isEmpty()) {
+                    claimed.addAll(chunk);
+                    queue.recordLatency(chunk.size(), 1_000L * chunk.size());
+                }
+            }));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).join();
+
+        List<Long> sorted = new ArrayList<>(claimed);
+        Collections.sort(sorted);
+        assertEquals(ids, sorted);
+    }
+
+    @Test
+    void shouldNotCreateMoreChunksThanNeeded_ForUnevenSizes() {
+        // 11 items over 10 workers used to produce 11 single-item partitions plus idle threads
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(ids(11), 10, TimeUnit.MILLISECONDS.toNanos(500));
+
+        int total = 0;
+        List<Long> chunk;
+        while (!(chunk = queue.nextChunk()).isEmpty()) {
+            total += chunk.size();
+        }
+
+        assertEquals(11, total);
+    }
+
+    @Test
+    void shouldGrowChunks_WhenItemsAreFast() {
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(ids(100_000), 1, TimeUnit.MILLISECONDS.toNanos(500));
+
+        List<Long> first = queue.nextChunk();
+        queue.recordLatency(first.size(), TimeUnit.MICROSECONDS.toNanos(10) * first.size());
+
+        assertEquals(AdaptiveChunkQueue.INITIAL_CHUNK_SIZE, first.size());
+        assertEquals(AdaptiveChunkQueue.MAX_CHUNK_SIZE, queue.nextChunk().size());
+    }
+
+    @Test
+    void shouldShrinkChunks_WhenItemsAreSlow() {
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(ids(100_000), 1, TimeUnit.MILLISECONDS.toNanos(500));
+
+        List<Long> first = queue.nextChunk();
+        queue.recordLatency(first.size(), TimeUnit.MILLISECONDS.toNanos(250) * first.size());
+
+        assertEquals(2, queue.nextChunk().size());
+    }
+
+    @Test
+    void shouldShrinkChunks_TowardsTheEndOfTheQueue() {
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(ids(40), 4, TimeUnit.SECONDS.toNanos(10));
+        queue.recordLatency(1, 1);
+
+        List<Integer> sizes = new ArrayList<>();
+        List<Long> chunk;
+        while (!(chunk = queue.nextChunk()).isEmpty()) {
+            sizes.add(chunk.size());
+        }
+
+        assertEquals(5, sizes.get(0));
+        assertEquals(1, sizes.get(sizes.size() - 1));
+    }
+
+    @Test
+    void shouldStayAdaptive_WhenMoreIdsTurnUpThanCounted() {
+        // Counted 10 before the run, but rows changed since then bring it to 100
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(AdaptiveChunkQueue.IdPages.of(LongStream.rangeClosed(1, 100).toArray()),
+                10, 1, TimeUnit.SECONDS.toNanos(10));
+        queue.recordLatency(1, TimeUnit.SECONDS.toNanos(1));
+
+        List<Integer> sizes = new ArrayList<>();
+        List<Long> chunk;
+        while (!(chunk = queue.nextChunk()).isEmpty()) {
+            sizes.add(chunk.size());
+        }
+
+        assertEquals(List.of(5, 3, 1, 1, 10, 10, 10, 10, 10, 10, 10, 10, 10), sizes);
+    }
+
+    @Test
+    void shouldKeepHandingOutChunks_WhileTheNextPageIsFetched() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AdaptiveChunkQueue.IdPages slowSecondPage = AdaptiveChunkQueue.IdPages.of(LongStream.rangeClosed(1, 20).toArray())
+                .andThen(new AdaptiveChunkQueue.IdPages() {
+                    private boolean done;
+
+                    @Override
+                    public long[] nextPage(int maxSize) {
+                        if (done) {
+                            return new long[0];
+                        }
+                        done = true;
+                        fetching.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return new long[]{21, 22};
+                    }
+                });
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(slowSecondPage, 1000, 1, TimeUnit.SECONDS.toNanos(10));
+
+        assertEquals(ids(8), queue.nextChunk());
+        // Past half of the page: this worker claims its chunk, then fetches the next page
+        CompletableFuture<List<Long>> prefetching = CompletableFuture.supplyAsync(queue::nextChunk);
+        assertTrue(fetching.await(5, TimeUnit.SECONDS));
+
+        // The rest of the current page is handed out during the query
+        assertEquals(List.of(17L, 18L, 19L, 20L), assertTimeoutPreemptively(Duration.ofSeconds(5), queue::nextChunk));
+        CompletableFuture<List<Long>> waiting = CompletableFuture.supplyAsync(queue::nextChunk);
+        release.countDown();
+
+        assertEquals(LongStream.rangeClosed(9, 16).boxed().toList(), prefetching.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(21L, 22L), waiting.get(5, TimeUnit.SECONDS));
+        assertTrue(queue.nextChunk().isEmpty());
+    }
+
+    @Test
+    void shouldFetchIdPagesLazily() {
+        AtomicInteger fetches = new AtomicInteger();
+        long count = 2L * AdaptiveChunkQueue.ID_PAGE_SIZE + 5;
+        AdaptiveChunkQueue.IdPages source = new AdaptiveChunkQueue.IdPages() {
+            private long next = 1;
+
+            @Override
+            public long[] nextPage(int maxSize) {
+                fetches.incrementAndGet();
+                long[] page = LongStream.range(next, Math.min(count + 1, next + maxSize)).toArray();
+                next += page.length;
+                return page;
+            }
+        };
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(source, count, 4, TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L), queue.nextChunk());
+        assertEquals(1, fetches.get());
+
+        long expected = 9;
+        List<Long> chunk;
+        while (!(chunk = queue.nextChunk()).isEmpty()) {
+            for (Long id : chunk) {
+                assertEquals(expected++, id);
+            }
+        }
+        assertEquals(count + 1, expected);
+        // Three pages plus the empty one that ends the run, and nothing after that
+        assertTrue(queue.nextChunk().isEmpty());
+        assertEquals(4, fetches.get());
+    }
+
+    @Test
+    void shouldChainIdPages() {
+        AdaptiveChunkQueue.IdPages pages = AdaptiveChunkQueue.IdPages.of(new long[]{7, 9})
+                .andThen(AdaptiveChunkQueue.IdPages.of(new long[]{1, 2, 3}));
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(pages, 5, 1, TimeUnit.SECONDS.toNanos(10));
+
+        List<Long> claimed = new ArrayList<>();
+        List<Long> chunk;
+        while (!(chunk = queue.nextChunk()).isEmpty()) {
+            claimed.addAll(chunk);
+        }
+
+        assertEquals(List.of(7L, 9L, 1L, 2L, 3L), claimed);
+    }
+
+    @Test
+    void shouldDrain_WhenAPageFetchFails() {
+        AdaptiveChunkQueue queue = new AdaptiveChunkQueue(maxSize -> {
+            throw new IllegalStateException("db down");
+        }, 10, 2, TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertThrows(IllegalStateException.class, queue::nextChunk);
+        assertTrue(queue.nextChunk().isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package com.siemens.internship;
+
+import com.siemens.internship.service.DatabaseConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseConcurrencyLimiterTest {
+
+    @Test
+    void shouldBackOffWhilePoolHasWaiters_AndRecoverAfterwards() {
+        AtomicInteger waiters = new AtomicInteger(3);
+        DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter(8, waiters::get, Duration.ZERO);
+
+        limiter.call(() -> null);
+        assertEquals(6, limiter.currentLimit());
+        for (int i = 0; i < 10; i++) {
+            limiter.call(() -> null);
+        }
+        assertEquals(1, limiter.currentLimit());
+
+        waiters.set(0);
+        for (int i = 0; i < 20; i++) {
+            limiter.call(() -> null);
+        }
+        assertEquals(8, limiter.currentLimit());
+    }
+
+    @Test
+    void shouldAdjustAtMostOncePerInterval() {
+        DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter(8, () -> 1, Duration.ofHours(1));
+
+        for (int i = 0; i < 10; i++) {
+            limiter.call(() -> null);
+        }
+
+        assertEquals(8, limiter.currentLimit());
+    }
+
+    @Test
+    void shouldNeverRunMoreCallsThanTheLimit() throws Exception {
+        DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(6);
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            calls.add(CompletableFuture.runAsync(() -> limiter.call(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return null;
+            })));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+
+        assertTrue(maxRunning.get() <= 2);
+        assertEquals(2, limiter.availablePermits());
+    }
+}
@@ -0,0 +1,63 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemBulkUpdateTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private ItemRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void shouldRollBackWithConflict_WhenAnotherWriterWinsTheFlush() throws Exception {
+        Item item = repository.save(new Item(null, "Test", "desc", "NEW", "email@test.com"));
+        // Another transaction commits a write to the item after the request has loaded it
+        doAnswer(inv -> {
+            List<Long> ids = inv.getArgument(0);
+            List<Item> loaded = repository.findAll((root, query, cb) -> root.get("id").in(ids));
+            Thread writer = Thread.ofPlatform().start(() ->
+                    jdbcTemplate.update("UPDATE item SET name = 'Concurrent', version = version + 1 WHERE id = ?", item.getId()));
+            writer.join();
+            return loaded;
+        }).when(repository).findAllById(anyIterable());
+
+        mockMvc.perform(patch("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"id\":" + item.getId() + ",\"name\":\"Renamed\"}]}"))
+                .andExpect(status().isConflict());
+
+        Item current = repository.findById(item.getId()).orElseThrow();
+        assertEquals("Concurrent", current.getName());
+        assertEquals(item.getVersion() + 1, current.getVersion());
+    }
+}
@@ -0,0 +1,96 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class ItemCachingTest {
+
+    @Autowired
+    private ItemService service;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private ItemRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        when(repository.findProjectedById(1L)).thenReturn(Optional.of(new ItemDTO(1L, "Test", "desc", "NEW", "email@test.com")));
+
+        service.findById(1L);
+        Optional<ItemDTO> cached = service.findById(1L);
+
+        assertEquals("Test", cached.orElseThrow().getName());
+        verify(repository, times(1)).findProjectedById(1L);
+    }
+
+    @Test
+    void shouldNotCacheMissingItems() {
+        when(repository.findProjectedById(2L)).thenReturn(Optional.empty());
+
+        service.findById(2L);
+        service.findById(2L);
+
+        verify(repository, times(2)).findProjectedById(2L);
+    }
+
+    @Test
+    void shouldEvictOnUpdate() {
+        Item item = new Item(1L, "Test", "desc", "NEW", "email@test.com");
+        when(repository.findProjectedById(1L)).thenReturn(Optional.of(new ItemDTO(1L, "Test", "desc", "NEW", "email@test.com")));
+        when(repository.findById(1L)).thenReturn(Optional.of(item));
+        when(repository.save(any(Item.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.findById(1L);
+        service.updateItem(1L, new Item(1L, "Updated", "desc", "NEW", "email@test.com"), null);
+        service.findById(1L);
+
+        // one read before the update and one after the eviction
+        verify(repository, times(2)).findProjectedById(1L);
+    }
+
+    @Test
+    void shouldEvictOnDelete() {
+        when(repository.findProjectedById(1L)).thenReturn(Optional.of(new ItemDTO(1L, "Test", "desc", "NEW", "email@test.com")));
+        when(repository.findById(1L)).thenReturn(Optional.of(new Item(1L, "Test", "desc", "NEW", "email@test.com")));
+
+        service.findById(1L);
+        service.deleteById(1L);
+
+        assertNull(cacheManager.getCache("items").get(1L));
+    }
+
+    @Test
+    void shouldCacheSavedItems() {
+        when(repository.save(any(Item.class))).thenAnswer(inv -> {
+            Item saved = inv.getArgument(0);
+            saved.setId(2L);
+            return saved;
+        });
+
+        service.save(new ItemDTO(null, "New", "desc", "NEW", null, "new@test.com"));
+
+        assertNotNull(cacheManager.getCache("items").get(2L));
+    }
+}
@@ -0,0 +1,157 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.DTO.ItemChangeDTO;
+import com.siemens.internship.service.ItemChangeFeed;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemChangeFeedTest {
+
+    private final ItemChangeFeed feed = new ItemChangeFeed(3, 2);
+
+    private static ItemChangeDTO deleted(long id) {
+        return new ItemChangeDTO(ItemChangeDTO.Type.DELETED, id, null);
+    }
+
+    // Runs the writes in a transaction as far as the feed can tell, and completes it with the given status
+    private static void inTransaction(Runnable writes, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writes.run();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldReturnChangesAfterPositionInBatches() throws Exception {
+        String start = feed.position();
+        feed.publish(List.of(deleted(1), deleted(2), deleted(3)));
+
+        ItemChangeFeed.Batch first = feed.read(start, 2, Duration.ZERO);
+        ItemChangeFeed.Batch rest = feed.read(first.getPosition(), 2, Duration.ZERO);
+
+        assertEquals(List.of(1L, 2L), first.getChanges().stream().map(ItemChangeDTO::getId).toList());
+        assertEquals(List.of(3L), rest.getChanges().stream().map(ItemChangeDTO::getId).toList());
+        assertEquals(feed.position(), rest.getPosition());
+        assertEquals(rest.getPosition(), rest.getChanges().get(0).getPosition());
+        assertFalse(rest.isResync());
+    }
+
+    @Test
+    void shouldTellReadersThatFellARingBehindToResync() throws Exception {
+        String start = feed.position();
+        feed.publish(List.of(deleted(1), deleted(2), deleted(3), deleted(4)));
+
+        ItemChangeFeed.Batch batch = feed.read(start, 10, Duration.ZERO);
+
+        assertTrue(batch.isResync());
+        assertEquals(ItemChangeDTO.Type.RESYNC, batch.getChanges().get(0).getType());
+        assertEquals(feed.position(), batch.getPosition());
+        assertFalse(feed.read(batch.getPosition(), 10, Duration.ZERO).isResync());
+    }
+
+    @Test
+    void shouldTellReadersWithPositionsOfAnotherEpochToResync() throws Exception {
+        assertTrue(feed.read("0-0", 10, Duration.ZERO).isResync());
+        assertTrue(feed.read("not a position", 10, Duration.ZERO).isResync());
+        String epoch = feed.position().substring(0, feed.position().lastIndexOf('-'));
+        assertTrue(feed.read(epoch + "--1", 10, Duration.ZERO).isResync());
+        assertTrue(feed.read(epoch + "-5", 10, Duration.ZERO).isResync());
+    }
+
+    @Test
+    void shouldWaitForTheNextChange() throws Exception {
+        String start = feed.position();
+        CompletableFuture<ItemChangeFeed.Batch> read = CompletableFuture.supplyAsync(() -> {
+            try {
+                return feed.read(start, 10, Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Thread.sleep(50);
+        feed.publish(List.of(deleted(7)));
+
+        assertEquals(7L, read.get(5, TimeUnit.SECONDS).getChanges().get(0).getId());
+        assertTrue(feed.read(feed.position(), 10, Duration.ofMillis(10)).getChanges().isEmpty());
+    }
+
+    @Test
+    void shouldPublishATransactionsChangesTogetherOnCommit() throws Exception {
+        String start = feed.position();
+
+        inTransaction(() -> {
+            feed.publishAfterCommit(List.of(deleted(1)));
+            feed.publishAfterCommit(List.of(deleted(2)));
+            assertEquals(start, feed.position());
+            assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+        }, TransactionSynchronization.STATUS_COMMITTED);
+
+        ItemChangeFeed.Batch batch = feed.read(start, 10, Duration.ZERO);
+        assertEquals(List.of(1L, 2L), batch.getChanges().stream().map(ItemChangeDTO::getId).toList());
+        assertFalse(TransactionSynchronizationManager.hasResource(feed));
+    }
+
+    @Test
+    void shouldNotPublishRolledBackChanges() {
+        String start = feed.position();
+
+        inTransaction(() -> feed.publishAfterCommit(List.of(deleted(1))), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(start, feed.position());
+        assertFalse(TransactionSynchronizationManager.hasResource(feed));
+    }
+
+    @Test
+    void shouldPublishOneResyncForATransactionLargerThanTheRing() throws Exception {
+        String before = feed.position();
+        feed.publish(List.of(deleted(1)));
+        String start = feed.position();
+
+        inTransaction(() -> {
+            feed.publishAfterCommit(List.of(deleted(2), deleted(3)));
+            feed.publishAfterCommit(List.of(deleted(4), deleted(5)));
+        }, TransactionSynchronization.STATUS_COMMITTED);
+
+        ItemChangeFeed.Batch batch = feed.read(start, 10, Duration.ZERO);
+        assertTrue(batch.isResync());
+        assertEquals(List.of(ItemChangeDTO.Type.RESYNC), batch.getChanges().stream().map(ItemChangeDTO::getType).toList());
+        assertEquals(feed.position(), batch.getPosition());
+        // A reader further behind still gets the changes before the marker, then stops at it
+        ItemChangeFeed.Batch earlier = feed.read(before, 10, Duration.ZERO);
+        assertEquals(List.of(ItemChangeDTO.Type.DELETED, ItemChangeDTO.Type.RESYNC),
+                earlier.getChanges().stream().map(ItemChangeDTO::getType).toList());
+        assertTrue(earlier.isResync());
+    }
+
+    @Test
+    void shouldCapSubscribersAndCountThem() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        feed.bindTo(registry);
+
+        assertTrue(feed.subscribe());
+        assertTrue(feed.subscribe());
+        assertFalse(feed.subscribe());
+        assertEquals(2, registry.get("items.changes.subscribers").gauge().value());
+        assertEquals(1, registry.get("items.changes.rejected").functionCounter().count());
+
+        feed.unsubscribe();
+        assertTrue(feed.subscribe());
+    }
+}
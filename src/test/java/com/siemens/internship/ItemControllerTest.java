@@ -1,32 +1,59 @@
 package com.siemens.internship;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siemens.internship.config.WireFormatConfig;
 import com.siemens.internship.controller.ItemController;
 import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemBulkUpdateDTO;
+import com.siemens.internship.model.DTO.ItemChangeDTO;
 import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemIngestDTO;
+import com.siemens.internship.model.DTO.ItemOperationResultDTO;
+import com.siemens.internship.model.DTO.ItemOperationResultDTO.Outcome;
+import com.siemens.internship.model.DTO.ItemPageDTO;
 import com.siemens.internship.model.DTO.ItemRepeatableDTO;
+import com.siemens.internship.model.DTO.ItemSearchPageDTO;
+import com.siemens.internship.model.DTO.ProcessingJobDTO;
+import com.siemens.internship.service.InMemoryResultSink;
+import com.siemens.internship.service.ItemChangeFeed;
+import com.siemens.internship.service.ItemIngestBuffer;
 import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ProcessingJob;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ItemController.class)
+@Import(ItemChangeFeed.class)
 class ItemControllerTest {
 
     @Autowired
@@ -35,9 +62,15 @@ class ItemControllerTest {
     @MockBean
     private ItemService service;
 
+    @MockBean
+    private ItemIngestBuffer ingestBuffer;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ItemChangeFeed changeFeed;
+
     private ItemDTO itemDTO;
     private ItemRepeatableDTO itemRepeatableDTO;
     private Item item;
@@ -47,6 +80,7 @@ class ItemControllerTest {
         itemDTO = new ItemDTO(null, "Name", "Desc", "NEW", null, "email@test.com");
         itemRepeatableDTO = new ItemRepeatableDTO(itemDTO, 3);
         item = new Item(1L, "Name", "Desc", "NEW", "email@test.com");
+        when(service.itemsETag()).thenReturn("epoch-7");
     }
 
     @Test
@@ -59,6 +93,69 @@ class ItemControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    void shouldAnswerWriteBehindCreatesOnceTheGroupIsCommitted() throws Exception {
+        ItemDTO saved = new ItemDTO(5L, "Name", "Desc", "NEW", null, "email@test.com");
+        ItemIngestBuffer.PendingItem pending = givenWriteBehindCreate(new ItemIngestDTO("p-1", ItemIngestDTO.Status.COMMITTED, saved, null));
+        when(ingestBuffer.awaitCommit(pending)).thenReturn(true);
+
+        mockMvc.perform(post("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(itemDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(5));
+
+        verify(service, never()).save(any());
+    }
+
+    @Test
+    void shouldAcceptWriteBehindCreatesWithAPendingId() throws Exception {
+        givenWriteBehindCreate(new ItemIngestDTO("p-1", ItemIngestDTO.Status.PENDING, null, null));
+
+        mockMvc.perform(post("/api/items")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(itemDTO)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/items/pending/p-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        verify(ingestBuffer, never()).awaitCommit(any());
+    }
+
+    @Test
+    void shouldPushBackWhenTheWriteBehindQueueIsFull() throws Exception {
+        when(ingestBuffer.isEnabled()).thenReturn(true);
+        when(ingestBuffer.submit(any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(itemDTO)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void shouldReturnPendingCreate() throws Exception {
+        ItemIngestBuffer.PendingItem pending = givenWriteBehindCreate(new ItemIngestDTO("p-1", ItemIngestDTO.Status.FAILED, null, "constraint"));
+        when(ingestBuffer.find("p-1")).thenReturn(Optional.of(pending));
+
+        mockMvc.perform(get("/api/items/pending/p-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.error").value("constraint"));
+        mockMvc.perform(get("/api/items/pending/p-2"))
+                .andExpect(status().isNotFound());
+    }
+
+    private ItemIngestBuffer.PendingItem givenWriteBehindCreate(ItemIngestDTO outcome) {
+        ItemIngestBuffer.PendingItem pending = mock(ItemIngestBuffer.PendingItem.class);
+        when(pending.getId()).thenReturn(outcome.getPendingId());
+        when(pending.toDTO()).thenReturn(outcome);
+        when(ingestBuffer.isEnabled()).thenReturn(true);
+        when(ingestBuffer.submit(any())).thenReturn(Optional.of(pending));
+        return pending;
+    }
+
     @Test
     void shouldCreateRepeatableItem() throws Exception {
         when(service.saveItemRepeatable(any())).thenReturn(itemDTO);
@@ -78,6 +175,21 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.name").value("Name"));
     }
 
+    @Test
+    void shouldReturnNotModified_WhenItemVersionMatches() throws Exception {
+        itemDTO.setVersion(4L);
+        when(service.findById(1L)).thenReturn(Optional.of(itemDTO));
+
+        mockMvc.perform(get("/api/items/1").header("If-None-Match", "\"4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/items/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
     @Test
     void shouldReturnNotFound_WhenItemNotFound() throws Exception {
         when(service.findById(1L)).thenReturn(Optional.empty());
@@ -88,17 +200,52 @@ class ItemControllerTest {
 
     @Test
     void shouldUpdateItem_WhenFound() throws Exception {
-        when(service.updateItem(eq(1L), any())).thenReturn(Optional.of(itemDTO));
+        itemDTO.setVersion(4L);
+        when(service.updateItem(eq(1L), any(), isNull())).thenReturn(Optional.of(itemDTO));
+
+        mockMvc.perform(put("/api/items/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(item)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void shouldPassIfMatchVersionToUpdate() throws Exception {
+        itemDTO.setVersion(4L);
+        when(service.updateItem(eq(1L), any(), eq(3L))).thenReturn(Optional.of(itemDTO));
+
+        mockMvc.perform(put("/api/items/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(item)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    void shouldReturnPreconditionFailed_WhenIfMatchVersionIsStale() throws Exception {
+        when(service.updateItem(eq(1L), any(), eq(3L))).thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
 
         mockMvc.perform(put("/api/items/1")
+                        .header("If-Match", "\"3\"")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(item)))
-                .andExpect(status().isOk());
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void shouldRejectMalformedIfMatch() throws Exception {
+        mockMvc.perform(put("/api/items/1")
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(item)))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
     void shouldReturnNotFound_WhenUpdatingNonExistentItem() throws Exception {
-        when(service.updateItem(eq(1L), any())).thenReturn(Optional.empty());
+        when(service.updateItem(eq(1L), any(), any())).thenReturn(Optional.empty());
 
         mockMvc.perform(put("/api/items/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -108,7 +255,7 @@ class ItemControllerTest {
 
     @Test
     void shouldReturnNotFound_WhenDeletingNonExistentItem() throws Exception {
-        when(service.existsById(1L)).thenReturn(false);
+        when(service.deleteItem(1L)).thenReturn(false);
 
         mockMvc.perform(delete("/api/items/1"))
                 .andExpect(status().isNotFound());
@@ -116,20 +263,188 @@ class ItemControllerTest {
 
     @Test
     void shouldDeleteItem_WhenExists() throws Exception {
-        when(service.existsById(1L)).thenReturn(true);
+        when(service.deleteItem(1L)).thenReturn(true);
 
         mockMvc.perform(delete("/api/items/1"))
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void shouldSearchItems() throws Exception {
+        when(service.search("NEW", null, "Na", 1, 20, "name", true))
+                .thenReturn(new ItemSearchPageDTO(List.of(itemDTO), 1, 20, 21));
+
+        mockMvc.perform(get("/api/items/search")
+                        .param("status", "NEW")
+                        .param("name", "Na")
+                        .param("page", "1")
+                        .param("size", "20")
+                        .param("sort", "name")
+                        .param("direction", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("Name"))
+                .andExpect(jsonPath("$.totalElements").value(21));
+    }
+
+    @Test
+    void shouldRejectSearchOnUnknownSortField() throws Exception {
+        mockMvc.perform(get("/api/items/search").param("sort", "description"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldBulkUpdateItems() throws Exception {
+        ItemDTO patch = new ItemDTO(1L, null, null, "DONE", null, null);
+        when(service.updateItems(any())).thenReturn(List.of(
+                new ItemOperationResultDTO(1L, Outcome.UPDATED, new ItemDTO(1L, "Name", "Desc", "DONE", null, "email@test.com")),
+                new ItemOperationResultDTO(2L, Outcome.NOT_FOUND, null)));
+
+        mockMvc.perform(patch("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ItemBulkUpdateDTO(List.of(patch)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$[0].item.status").value("DONE"))
+                .andExpect(jsonPath("$[1].outcome").value("NOT_FOUND"));
+    }
+
+    @Test
+    void shouldRejectBulkUpdateWithoutItems() throws Exception {
+        mockMvc.perform(patch("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldBulkDeleteItems() throws Exception {
+        when(service.deleteItems(List.of(1L, 2L))).thenReturn(List.of(
+                new ItemOperationResultDTO(1L, Outcome.DELETED, null),
+                new ItemOperationResultDTO(2L, Outcome.NOT_FOUND, null)));
+
+        mockMvc.perform(delete("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].outcome").value("DELETED"))
+                .andExpect(jsonPath("$[1].outcome").value("NOT_FOUND"));
+    }
+
     @Test
     void shouldProcessItems() throws Exception {
-        List<ItemDTO> processedItems = List.of(itemDTO);
-        when(service.processItemsAsync()).thenReturn(CompletableFuture.completedFuture(processedItems));
+        ProcessingJob job = new ProcessingJob(new InMemoryResultSink(1));
+        job.recordProcessed(List.of(itemDTO, itemDTO, itemDTO));
+        when(service.processItemsJobAsync()).thenReturn(CompletableFuture.completedFuture(job));
+
+        MvcResult result = mockMvc.perform(get("/api/items/process"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        mockMvc.perform(get("/api/items/process"))
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("Name"));
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Name"))
+                .andExpect(header().string("X-Dropped-Results", "2"));
+    }
+
+    @Test
+    void shouldStreamChangesAsServerSentEvents() throws Exception {
+        String start = changeFeed.position();
+        changeFeed.publish(List.of(new ItemChangeDTO(ItemChangeDTO.Type.CREATED, 1L, itemDTO),
+                new ItemChangeDTO(ItemChangeDTO.Type.DELETED, 1L, null)));
+
+        MvcResult result = mockMvc.perform(get("/api/items/changes").param("from", start).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = awaitContent(result, changeFeed.position());
+        // The client disconnects
+        result.getRequest().getAsyncContext().complete();
+
+        assertEquals(2, body.split("id:").length - 1);
+        assertTrue(body.contains("\"type\":\"CREATED\""));
+        assertTrue(body.contains("id:" + changeFeed.position()));
+    }
+
+    @Test
+    void shouldTellStaleChangeStreamClientsToResync() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/items/changes").param("from", "0-0").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(result, "RESYNC");
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"position\":\"" + changeFeed.position() + "\"")));
+    }
+
+    @Test
+    void shouldRefuseChangeStreams_WhenAllSubscriberSlotsAreTaken() throws Exception {
+        int taken = 0;
+        while (changeFeed.subscribe()) {
+            taken++;
+        }
+        try {
+            mockMvc.perform(get("/api/items/changes").accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "5"));
+            mockMvc.perform(get("/api/items/changes").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            for (int i = 0; i < taken; i++) {
+                changeFeed.unsubscribe();
+            }
+        }
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        for (int i = 0; i < 100 && !result.getResponse().getContentAsString().contains(expected); i++) {
+            Thread.sleep(50);
+        }
+        return result.getResponse().getContentAsString();
+    }
+
+    @Test
+    void shouldSubmitProcessingJob() throws Exception {
+        when(service.submitProcessingJob()).thenReturn(Optional.of(ProcessingJobDTO.builder()
+                .jobId("job-1")
+                .status("RUNNING")
+                .build()));
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("job-1"));
+    }
+
+    @Test
+    void shouldRejectProcessingJob_WhenRegistryIsFull() throws Exception {
+        when(service.submitProcessingJob()).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void shouldGetProcessingJob() throws Exception {
+        when(service.getProcessingJob("job-1", 0, 10)).thenReturn(Optional.of(ProcessingJobDTO.builder()
+                .jobId("job-1")
+                .status("COMPLETED")
+                .total(1)
+                .processed(1)
+                .results(List.of(itemDTO))
+                .build()));
+
+        mockMvc.perform(get("/api/items/process/job-1").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(1))
+                .andExpect(jsonPath("$.results[0].name").value("Name"));
+    }
+
+    @Test
+    void shouldReturnNotFound_WhenProcessingJobUnknown() throws Exception {
+        when(service.getProcessingJob(eq("missing"), anyInt(), anyInt())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/items/process/missing"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -138,6 +453,112 @@ class ItemControllerTest {
 
         mockMvc.perform(get("/api/items"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"epoch-7\""))
                 .andExpect(jsonPath("$[0].name").value("Name"));
     }
+
+    @Test
+    void shouldAnswerUnchangedListWithoutQuerying() throws Exception {
+        mockMvc.perform(get("/api/items").header("If-None-Match", "\"epoch-7\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/items").param("limit", "10").header("If-None-Match", "\"epoch-7\""))
+                .andExpect(status().isNotModified());
+
+        verify(service, never()).findAll();
+        verify(service, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    void shouldReturnListAgain_WhenTableChanged() throws Exception {
+        when(service.findAll()).thenReturn(Collections.singletonList(itemDTO));
+
+        mockMvc.perform(get("/api/items").header("If-None-Match", "\"epoch-6\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"epoch-7\""));
+    }
+
+    @Test
+    void shouldExposeListETagOnHead() throws Exception {
+        mockMvc.perform(head("/api/items"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"epoch-7\""));
+
+        verify(service, never()).findAll();
+    }
+
+    @Test
+    void shouldGetAllItemsAsSmile_WhenRequested() throws Exception {
+        when(service.findAll()).thenReturn(Collections.singletonList(itemDTO));
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        byte[] body = mockMvc.perform(get("/api/items").accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ItemDTO[] items = new ObjectMapper(WireFormatConfig.smileFactory()).readValue(body, ItemDTO[].class);
+        assertEquals("Name", items[0].getName());
+        // Smile header ":)\n" then flags: 0x02 means repeated string values are back-referenced
+        assertEquals(':', body[0]);
+        assertTrue((body[3] & 0x02) != 0, "served by a converter without shared string values");
+    }
+
+    @Test
+    void shouldTagSmileListSeparately_SoAJsonTagDoesNotMatchIt() throws Exception {
+        when(service.findAll()).thenReturn(Collections.singletonList(itemDTO));
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        mockMvc.perform(get("/api/items").accept(smile).header("If-None-Match", "\"epoch-7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"epoch-7-smile\""))
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"));
+        mockMvc.perform(get("/api/items").accept(smile).header("If-None-Match", "\"epoch-7-smile\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/items").header("If-None-Match", "\"epoch-7-smile\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"epoch-7\""));
+    }
+
+    @Test
+    void shouldAcceptSmileItemTagInIfMatch() throws Exception {
+        itemDTO.setVersion(4L);
+        when(service.updateItem(eq(1L), any(), eq(3L))).thenReturn(Optional.of(itemDTO));
+
+        mockMvc.perform(put("/api/items/1")
+                        .header("If-Match", "\"3-smile\"")
+                        .accept(MediaType.parseMediaType("application/x-jackson-smile"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(item)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4-smile\""));
+    }
+
+    @Test
+    void shouldGetItemsPage() throws Exception {
+        when(service.findPage(5L, 1)).thenReturn(new ItemPageDTO(List.of(itemDTO), 6L));
+
+        mockMvc.perform(get("/api/items").param("afterId", "5").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("Name"))
+                .andExpect(jsonPath("$.nextAfterId").value(6));
+    }
+
+    @Test
+    void shouldStreamItemsAsNdjson() throws Exception {
+        doAnswer(inv -> {
+            Consumer<ItemDTO> consumer = inv.getArgument(0);
+            consumer.accept(itemDTO);
+            consumer.accept(itemDTO);
+            return null;
+        }).when(service).streamAll(any());
+
+        MvcResult result = mockMvc.perform(get("/api/items/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"name\":\"Name\"")));
+    }
 }
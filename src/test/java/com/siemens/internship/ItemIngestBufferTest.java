@@ -0,0 +1,182 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemIngestDTO;
+import com.siemens.internship.service.ItemIngestBuffer;
+import com.siemens.internship.service.ItemService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ItemIngestBufferTest {
+
+    private final ItemService itemService = mock(ItemService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong ids = new AtomicLong();
+    private ItemIngestBuffer buffer;
+
+    private ItemIngestBuffer start(int capacity, int batchSize, long maxDelayMillis) {
+        when(itemService.saveAll(anyList())).thenAnswer(inv -> {
+            List<ItemDTO> saved = new ArrayList<>();
+            for (ItemDTO item : (List<ItemDTO>) inv.getArgument(0)) {
+                saved.add(withId(item));
+            }
+            return saved;
+        });
+        when(itemService.save(any())).thenAnswer(inv -> withId(inv.getArgument(0)));
+        buffer = new ItemIngestBuffer(itemService, meterRegistry, true, capacity, batchSize, maxDelayMillis, 5000);
+        buffer.start();
+        return buffer;
+    }
+
+    private ItemDTO withId(ItemDTO item) {
+        return new ItemDTO(ids.incrementAndGet(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail());
+    }
+
+    private static ItemDTO item(String name) {
+        return new ItemDTO(null, name, "desc", "NEW", "email@test.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.stop();
+        }
+    }
+
+    @Test
+    void shouldCommitAFullGroupInOneTransaction() {
+        start(100, 3, 60_000);
+
+        List<ItemIngestBuffer.PendingItem> pending = List.of(
+                buffer.submit(item("a")).orElseThrow(),
+                buffer.submit(item("b")).orElseThrow(),
+                buffer.submit(item("c")).orElseThrow());
+
+        pending.forEach(buffer::awaitCommit);
+        verify(itemService, times(1)).saveAll(anyList());
+        assertEquals(List.of("a", "b", "c"), pending.stream().map(p -> p.toDTO().getItem().getName()).toList());
+        assertTrue(pending.stream().allMatch(p -> p.toDTO().getStatus() == ItemIngestDTO.Status.COMMITTED));
+        assertEquals(3.0, meterRegistry.summary("items.ingest.group.size").totalAmount());
+    }
+
+    @Test
+    void shouldCommitAPartialGroupAfterTheMaxDelay() {
+        start(100, 500, 20);
+
+        ItemIngestBuffer.PendingItem pending = buffer.submit(item("a")).orElseThrow();
+
+        assertTrue(buffer.awaitCommit(pending));
+        assertEquals(ItemIngestDTO.Status.COMMITTED, pending.toDTO().getStatus());
+        assertSame(pending, buffer.find(pending.getId()).orElseThrow());
+    }
+
+    @Test
+    void shouldParkTheIdleWriterUntilTheNextCreate() throws Exception {
+        start(100, 500, 20);
+        Thread writer = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("item-ingest-writer") && thread.isAlive())
+                .findFirst().orElseThrow();
+        for (int i = 0; i < 100 && writer.getState() != Thread.State.WAITING; i++) {
+            Thread.sleep(10);
+        }
+
+        // Parked without a timeout: an idle writer doesn't wake up to poll the empty queue
+        assertEquals(Thread.State.WAITING, writer.getState());
+        ItemIngestBuffer.PendingItem pending = buffer.submit(item("a")).orElseThrow();
+        assertTrue(buffer.awaitCommit(pending));
+        assertEquals(ItemIngestDTO.Status.COMMITTED, pending.toDTO().getStatus());
+    }
+
+    @Test
+    void shouldRefuseCreatesWhileTheQueueIsFull() {
+        start(2, 500, 60_000);
+
+        assertTrue(buffer.submit(item("a")).isPresent());
+        assertTrue(buffer.submit(item("b")).isPresent());
+        assertTrue(buffer.submit(item("c")).isEmpty());
+        assertEquals(1.0, meterRegistry.counter("items.ingest.rejected").count());
+    }
+
+    @Test
+    void shouldFailOnlyTheBadItemsOfAFailedGroup() {
+        start(100, 2, 60_000);
+        doThrow(new DataIntegrityViolationException("constraint")).when(itemService).saveAll(anyList());
+        doThrow(new DataIntegrityViolationException("bad item"))
+                .when(itemService).save(argThat(item -> "bad".equals(item.getName())));
+
+        ItemIngestBuffer.PendingItem good = buffer.submit(item("good")).orElseThrow();
+        ItemIngestBuffer.PendingItem bad = buffer.submit(item("bad")).orElseThrow();
+
+        buffer.awaitCommit(good);
+        buffer.awaitCommit(bad);
+        assertEquals(ItemIngestDTO.Status.COMMITTED, good.toDTO().getStatus());
+        assertEquals(ItemIngestDTO.Status.FAILED, bad.toDTO().getStatus());
+        // The exception message may quote SQL; clients only get a generic reason
+        assertEquals("The item could not be saved", bad.toDTO().getError());
+    }
+
+    @Test
+    void shouldWriteOutQueuedCreatesOnStop() {
+        start(100, 500, 60_000);
+        ItemIngestBuffer.PendingItem pending = buffer.submit(item("a")).orElseThrow();
+
+        buffer.stop();
+
+        assertEquals(ItemIngestDTO.Status.COMMITTED, pending.toDTO().getStatus());
+        assertTrue(buffer.submit(item("b")).isEmpty());
+    }
+
+    @Test
+    void shouldWriteOutCreatesSubmittedWhileStopping() throws Exception {
+        start(100_000, 500, 60_000);
+        for (int round = 0; round < 50; round++) {
+            buffer.stop();
+            buffer = new ItemIngestBuffer(itemService, meterRegistry, true, 100_000, 500, 60_000, 5000);
+            buffer.start();
+            List<ItemIngestBuffer.PendingItem> accepted = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch submitting = new CountDownLatch(4);
+            List<Thread> clients = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                clients.add(Thread.ofPlatform().start(() -> {
+                    submitting.countDown();
+                    Optional<ItemIngestBuffer.PendingItem> pending;
+                    while ((pending = buffer.submit(item("a"))).isPresent()) {
+                        accepted.add(pending.get());
+                    }
+                }));
+            }
+            submitting.await();
+
+            buffer.stop();
+            for (Thread client : clients) {
+                client.join();
+            }
+
+            assertTrue(accepted.stream().allMatch(p -> p.toDTO().getStatus() == ItemIngestDTO.Status.COMMITTED),
+                    "a create accepted while stopping was never written");
+        }
+    }
+
+    @Test
+    void shouldNotAcceptCreatesWhenDisabled() {
+        buffer = new ItemIngestBuffer(itemService, meterRegistry, false, 100, 10, 5, 5000);
+        buffer.start();
+
+        assertFalse(buffer.isEnabled());
+        assertTrue(buffer.submit(item("a")).isEmpty());
+    }
+}
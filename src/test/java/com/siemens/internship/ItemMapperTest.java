@@ -0,0 +1,65 @@
+package com.siemens.internship;
+
+import com.siemens.internship.mapper.ItemMapper;
+import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemRepeatableDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemMapperTest {
+
+    private final ItemMapper mapper = new ItemMapper();
+
+    @Test
+    void shouldMapEntityToDTO() {
+        ItemDTO dto = mapper.toDTO(new Item(1L, "Name", "Desc", "NEW", "email@test.com"));
+
+        assertEquals(1L, dto.getId());
+        assertEquals("Name", dto.getName());
+        assertEquals("Desc", dto.getDescription());
+        assertEquals("NEW", dto.getStatus());
+        assertEquals("email@test.com", dto.getEmail());
+        assertNull(dto.getProcessedBy());
+    }
+
+    @Test
+    void shouldMapDTOToEntity() {
+        Item item = mapper.toEntity(new ItemDTO(2L, "Name", "Desc", "NEW", "Thread-1", "email@test.com"));
+
+        assertEquals(2L, item.getId());
+        assertEquals("Name", item.getName());
+        assertEquals("Desc", item.getDescription());
+        assertEquals("NEW", item.getStatus());
+        assertEquals("email@test.com", item.getEmail());
+    }
+
+    @Test
+    void shouldMapNullToNull() {
+        assertNull(mapper.toDTO(null));
+        assertNull(mapper.toEntity(null));
+    }
+
+    @Test
+    void shouldMapList() {
+        List<ItemDTO> dtos = mapper.toDTOs(List.of(
+                new Item(1L, "A", "desc", "NEW", "a@test.com"),
+                new Item(2L, "B", "desc", "NEW", "b@test.com")));
+
+        assertEquals(List.of(1L, 2L), dtos.stream().map(ItemDTO::getId).toList());
+    }
+
+    @Test
+    void shouldCreateUnsavedCopy() {
+        ItemDTO source = new ItemDTO(5L, "Name", "Desc", "NEW", null, "email@test.com");
+
+        Item copy = mapper.toNewEntity(new ItemRepeatableDTO(source, 2));
+
+        assertNull(copy.getId());
+        assertEquals("Name", copy.getName());
+        assertEquals("email@test.com", copy.getEmail());
+    }
+}
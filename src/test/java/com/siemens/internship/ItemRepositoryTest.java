@@ -1,21 +1,42 @@
 package com.siemens.internship;
 
 import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemDTO;
 import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ItemSpecifications;
+import com.siemens.internship.service.OpenItemWrites;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
+@Import(OpenItemWrites.class)
 public class ItemRepositoryTest {
 
     @Autowired
     private ItemRepository repository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OpenItemWrites openWrites;
+
     @Test
     public void testSaveAndFind() {
         Item item = new Item(null, "Test", "desc", "NEW", "email@test.com");
@@ -27,4 +48,172 @@ public class ItemRepositoryTest {
         List<Long> ids = repository.findAllIds();
         assertTrue(ids.contains(item.getId()));
     }
+
+    @Test
+    public void testKeysetPage() {
+        Item first = repository.save(new Item(null, "First", "desc", "NEW", "first@test.com"));
+        Item second = repository.save(new Item(null, "Second", "desc", "NEW", "second@test.com"));
+        Item third = repository.save(new Item(null, "Third", "desc", "NEW", "third@test.com"));
+
+        List<ItemDTO> page = repository.findPageAfter(first.getId(), Limit.of(1));
+
+        assertEquals(1, page.size());
+        assertEquals(second.getId(), page.get(0).getId());
+        assertTrue(repository.findPageAfter(third.getId(), Limit.of(1)).isEmpty());
+    }
+
+    @Test
+    public void testProjectedReads() {
+        Item item = repository.save(new Item(null, "Projected", "desc", "NEW", "projected@test.com"));
+
+        ItemDTO dto = repository.findProjectedById(item.getId()).orElseThrow();
+        assertEquals("Projected", dto.getName());
+        assertEquals("projected@test.com", dto.getEmail());
+        assertNull(dto.getProcessedBy());
+        assertTrue(repository.findProjectedById(-1L).isEmpty());
+        assertTrue(repository.findAllProjected().stream().anyMatch(found -> found.getId().equals(item.getId())));
+    }
+
+    @Test
+    public void testUpdateStatusIfUnchanged() {
+        Item first = repository.save(new Item(null, "First", "desc", "NEW", "first@test.com"));
+        Item second = repository.save(new Item(null, "Second", "desc", "NEW", "second@test.com"));
+        entityManager.flush();
+        entityManager.clear();
+        Item staleSecond = new Item(second.getId(), "Second", "desc", "NEW", "second@test.com");
+        staleSecond.setVersion(second.getVersion() - 1);
+
+        List<Long> conflicts = repository.updateStatusIfUnchanged(List.of(first, staleSecond), "PROCESSED");
+
+        assertEquals(List.of(second.getId()), conflicts);
+        Item updated = repository.findById(first.getId()).orElseThrow();
+        assertEquals("PROCESSED", updated.getStatus());
+        assertEquals(first.getVersion() + 1, updated.getVersion());
+        assertEquals("NEW", repository.findById(second.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testStaleEntityUpdateIsRejected() {
+        Item item = repository.save(new Item(null, "Item", "desc", "NEW", "item@test.com"));
+        entityManager.flush();
+        entityManager.clear();
+        Item stale = new Item(item.getId(), "Stale", "desc", "NEW", "item@test.com");
+        stale.setVersion(item.getVersion());
+
+        Item current = repository.findById(item.getId()).orElseThrow();
+        current.setName("Current");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(item.getVersion() + 1, repository.findById(item.getId()).orElseThrow().getVersion());
+        assertThrows(OptimisticLockingFailureException.class, () -> {
+            repository.save(stale);
+            entityManager.flush();
+        });
+    }
+
+    @Test
+    public void testKeysetIds() {
+        Item first = repository.save(new Item(null, "First", "desc", "NEW", "first@test.com"));
+        Item second = repository.save(new Item(null, "Second", "desc", "NEW", "second@test.com"));
+        long upTo = repository.findMaxId().orElseThrow();
+        Item late = repository.save(new Item(null, "Late", "desc", "NEW", "late@test.com"));
+
+        assertEquals(List.of(first.getId()), repository.findIdsAfter(Long.MIN_VALUE, upTo, Limit.of(1)));
+        assertEquals(List.of(second.getId()), repository.findIdsAfter(first.getId(), upTo, Limit.of(10)));
+        assertEquals(repository.count() - 1, repository.countIdsUpTo(upTo));
+        assertFalse(repository.findIdsAfter(Long.MIN_VALUE, upTo, Limit.of(10)).contains(late.getId()));
+    }
+
+    @Test
+    public void testFindIdsModifiedSince() {
+        Item old = repository.save(new Item(null, "Old", "desc", "NEW", "old@test.com"));
+        Item untouched = repository.save(new Item(null, "Untouched", "desc", "NEW", "untouched@test.com"));
+        entityManager.flush();
+        Instant watermark = Instant.now();
+        old.setName("Unchanged");
+        Item fresh = repository.save(new Item(null, "Fresh", "desc", "NEW", "fresh@test.com"));
+        entityManager.flush();
+        long upTo = repository.findMaxId().orElseThrow();
+
+        assertNotNull(old.getLastModified());
+        List<ItemRepository.ModifiedKey> changed = repository.findModifiedAfter(watermark, Long.MAX_VALUE, upTo, Limit.of(10));
+        assertEquals(Set.of(old.getId(), fresh.getId()), changed.stream().map(ItemRepository.ModifiedKey::getId).collect(Collectors.toSet()));
+        assertEquals(2, repository.countIdsModifiedSince(watermark, upTo));
+        // The next page resumes after the last (lastModified, id) key
+        ItemRepository.ModifiedKey first = changed.get(0);
+        assertEquals(List.of(changed.get(1).getId()), repository.findModifiedAfter(first.getLastModified(), first.getId(), upTo, Limit.of(10))
+                .stream().map(ItemRepository.ModifiedKey::getId).toList());
+        assertEquals(List.of(untouched.getId()),
+                repository.findIdsNotModifiedSince(List.of(old.getId(), untouched.getId(), -1L), watermark));
+
+        // The bulk status update does not stamp lastModified
+        Instant afterChanges = Instant.now();
+        repository.updateStatusIfUnchanged(List.of(fresh), "PROCESSED");
+        entityManager.clear();
+        assertEquals(0, repository.countIdsModifiedSince(afterChanges, upTo));
+    }
+
+    @Test
+    public void testOpenTransactionHoldsTheWatermarkBack() throws Exception {
+        Instant beforeWrite = Instant.now();
+        repository.save(new Item(null, "Open", "desc", "NEW", "open@test.com"));
+        Thread.sleep(10);
+
+        // The test transaction is still open, so its first write is the oldest
+        Instant now = Instant.now();
+        Instant oldest = openWrites.oldestSince(now);
+        assertFalse(oldest.isBefore(beforeWrite));
+        assertTrue(oldest.isBefore(now));
+    }
+
+    @Test
+    public void testBulkDelete() {
+        Item first = repository.save(new Item(null, "First", "desc", "NEW", "first@test.com"));
+        Item second = repository.save(new Item(null, "Second", "desc", "NEW", "second@test.com"));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of(first.getId()), repository.findExistingIds(List.of(first.getId(), -1L)));
+        assertEquals(1, repository.deleteAllByIdIn(List.of(first.getId(), -1L)));
+        assertFalse(repository.existsById(first.getId()));
+        assertTrue(repository.existsById(second.getId()));
+    }
+
+    @Test
+    public void testSearchSpecifications() {
+        repository.save(new Item(null, "Alpha", "desc", "NEW", "a@test.com"));
+        Item done = repository.save(new Item(null, "Alpine", "desc", "DONE", "b@test.com"));
+        repository.save(new Item(null, "Beta", "desc", "DONE", "c@test.com"));
+        repository.save(new Item(null, "Al%", "desc", "DONE", "d@test.com"));
+
+        Page<Item> page = repository.findAll(
+                Specification.where(ItemSpecifications.hasStatus("DONE")).and(ItemSpecifications.nameStartsWith("Alp")),
+                PageRequest.of(0, 10, Sort.by("name")));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals(done.getId(), page.getContent().get(0).getId());
+        assertEquals(1, repository.findAll(ItemSpecifications.nameStartsWith("Al%")).size());
+        assertEquals(1, repository.findAll(ItemSpecifications.hasEmail("c@test.com")).size());
+    }
+
+    @Test
+    public void testSearchQueriesUseIndexes() {
+        assertTrue(explain("SELECT id FROM item WHERE status = 'NEW'").contains("IDX_ITEM_STATUS"));
+        assertTrue(explain("SELECT id FROM item WHERE email = 'a@test.com'").contains("IDX_ITEM_EMAIL"));
+        assertTrue(explain("SELECT id FROM item WHERE name LIKE 'Al%'").contains("IDX_ITEM_NAME"));
+    }
+
+    @Test
+    public void testModifiedSincePagesReadTheirIndexInOrder() {
+        String plan = explain("SELECT id FROM item WHERE last_modified >= CURRENT_TIMESTAMP "
+                + "AND (last_modified > CURRENT_TIMESTAMP OR id > 5) AND id <= 100 ORDER BY last_modified, id LIMIT 10");
+        // A range on the index in its own order: no primary key walk and no sort
+        assertTrue(plan.contains("IDX_ITEM_LAST_MODIFIED_ID"));
+        assertTrue(plan.contains("INDEX SORTED"));
+    }
+
+    private String explain(String sql) {
+        return entityManager.getEntityManager().createNativeQuery("EXPLAIN " + sql).getSingleResult().toString().toUpperCase();
+    }
 }
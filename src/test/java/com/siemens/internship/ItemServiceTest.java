@@ -1,20 +1,63 @@
 package com.siemens.internship;
 
+import com.siemens.internship.config.ProcessingExecutorConfig;
+import com.siemens.internship.mapper.ItemMapper;
 import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.model.DTO.ItemChangeDTO;
 import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.model.DTO.ItemOperationResultDTO;
+import com.siemens.internship.model.DTO.ItemOperationResultDTO.Outcome;
+import com.siemens.internship.model.DTO.ItemPageDTO;
 import com.siemens.internship.model.DTO.ItemRepeatableDTO;
+import com.siemens.internship.model.DTO.ItemSearchPageDTO;
+import com.siemens.internship.model.DTO.ProcessingJobDTO;
 import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.DatabaseConcurrencyLimiter;
+import com.siemens.internship.service.ItemChangeFeed;
+import com.siemens.internship.service.ItemProcessor;
 import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.OpenItemWrites;
+import com.siemens.internship.service.ProcessingJob;
+import com.siemens.internship.service.ProcessingJobRegistry;
+import com.siemens.internship.service.TransientRetry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.MockitoAnnotations;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,21 +70,61 @@ class ItemServiceTest {
     @Mock
     private ItemRepository repository;
 
+    @Spy
+    private ItemMapper itemMapper = new ItemMapper();
+
+    @Mock
+    private EntityManager entityManager;
+
     @Mock
-    private ModelMapper modelMapper;
+    private ItemProcessor itemProcessor;
+
+    @Spy
+    private ProcessingJobRegistry jobRegistry = new ProcessingJobRegistry();
+
+    @Spy
+    private DatabaseConcurrencyLimiter databaseLimiter = new DatabaseConcurrencyLimiter(10);
+
+    @Spy
+    private TransientRetry transientRetry = new TransientRetry(3, 1);
+
+    @Spy
+    private ItemChangeFeed changeFeed = new ItemChangeFeed(100, 10);
+
+    @Spy
+    private OpenItemWrites openWrites = new OpenItemWrites();
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager("items");
+
+    private ExecutorService executor;
+
+    private ExecutorService itemExecutor;
+
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        executor = Executors.newFixedThreadPool(4);
+        itemExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(service, "executor", executor);
+        ReflectionTestUtils.setField(service, "itemExecutor", itemExecutor);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        itemExecutor.shutdownNow();
     }
 
     @Test
     void testFindAll() {
-        List<Item> items = List.of(new Item(1L, "Test", "desc", "NEW", "email@test.com"));
-        ItemDTO dto = new ItemDTO(1L, "Test", "desc", "NEW", null, "email@test.com");
+        List<ItemDTO> items = List.of(new ItemDTO(1L, "Test", "desc", "NEW", "email@test.com"));
 
-        when(repository.findAll()).thenReturn(items);
-        when(modelMapper.map(any(Item.class), eq(ItemDTO.class))).thenReturn(dto);
+        when(repository.findAllProjected()).thenReturn(items);
 
         List<ItemDTO> result = service.findAll();
 
@@ -49,14 +132,59 @@ class ItemServiceTest {
         assertEquals("Test", result.get(0).getName());
     }
 
+    @Test
+    void testFindById() {
+        when(repository.findProjectedById(1L)).thenReturn(Optional.of(new ItemDTO(1L, "Test", "desc", "NEW", "email@test.com")));
+
+        assertEquals("Test", service.findById(1L).orElseThrow().getName());
+        verify(repository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testFindPage_ReturnsCursorWhenPageIsFull() {
+        ItemDTO first = new ItemDTO(6L, "A", "desc", "NEW", "a@test.com");
+        ItemDTO second = new ItemDTO(7L, "B", "desc", "NEW", "b@test.com");
+
+        when(repository.findPageAfter(5L, Limit.of(2))).thenReturn(List.of(first, second));
+
+        ItemPageDTO page = service.findPage(5L, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(7L, page.getNextAfterId());
+    }
+
+    @Test
+    void testFindPage_LastPageHasNoCursor() {
+        when(repository.findPageAfter(0L, Limit.of(10)))
+                .thenReturn(List.of(new ItemDTO(1L, "A", "desc", "NEW", "a@test.com")));
+
+        ItemPageDTO page = service.findPage(null, 10);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextAfterId());
+    }
+
+    @Test
+    void testSearch_ClampsPageSizeAndAddsIdTieBreaker() {
+        Item item = new Item(1L, "Name", "desc", "NEW", "email@test.com");
+        when(repository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenAnswer(invocation -> new PageImpl<>(List.of(item), invocation.getArgument(1), 1));
+
+        ItemSearchPageDTO result = service.search("NEW", null, null, 0, 5000, "name", true);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(repository).findAll(any(Specification.class), pageable.capture());
+        assertEquals(PageRequest.of(0, 1000, Sort.by(Sort.Direction.DESC, "name", "id")), pageable.getValue());
+        assertEquals(1, result.getTotalElements());
+        assertEquals("Name", result.getItems().get(0).getName());
+    }
+
     @Test
     void testSave() {
         ItemDTO dto = new ItemDTO(null, "Test", "desc", "NEW", null, "email@test.com");
         Item entity = new Item(1L, "Test", "desc", "NEW", "email@test.com");
 
-        when(modelMapper.map(dto, Item.class)).thenReturn(entity);
-        when(repository.save(entity)).thenReturn(entity);
-        when(modelMapper.map(entity, ItemDTO.class)).thenReturn(dto);
+        when(repository.save(any(Item.class))).thenReturn(entity);
 
         ItemDTO saved = service.save(dto);
 
@@ -70,19 +198,126 @@ class ItemServiceTest {
 
         when(repository.findById(1L)).thenReturn(Optional.of(existing));
         when(repository.save(updated)).thenReturn(updated);
-        when(modelMapper.map(updated, ItemDTO.class)).thenReturn(new ItemDTO(1L, "Updated", "desc", "NEW", null, "email@test.com"));
 
-        Optional<ItemDTO> result = service.updateItem(1L, updated);
+        Optional<ItemDTO> result = service.updateItem(1L, updated, null);
 
         assertTrue(result.isPresent());
         assertEquals("Updated", result.get().getName());
     }
 
+    @Test
+    void testUpdateItem_IfMatchVersionIsStale() {
+        Item existing = new Item(1L, "Old", "desc", "NEW", "email@test.com");
+        existing.setVersion(4);
+        when(repository.findById(1L)).thenReturn(Optional.of(existing));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> service.updateItem(1L, new Item(1L, "Updated", "desc", "NEW", "email@test.com"), 3L));
+        verify(repository, never()).save(any(Item.class));
+    }
+
+    @Test
+    void testUpdateItem_IfMatchVersionIsCurrent() {
+        Item existing = new Item(1L, "Old", "desc", "NEW", "email@test.com");
+        existing.setVersion(3);
+        Item updated = new Item(1L, "Updated", "desc", "NEW", "email@test.com");
+        when(repository.findById(1L)).thenReturn(Optional.of(existing));
+        when(repository.save(updated)).thenAnswer(inv -> {
+            Item saved = inv.getArgument(0);
+            assertEquals(3, saved.getVersion());
+            saved.setVersion(4);
+            return saved;
+        });
+
+        ItemDTO result = service.updateItem(1L, updated, 3L).orElseThrow();
+
+        assertEquals(4L, result.getVersion());
+    }
+
+    @Test
+    void testUpdateItem_UnconditionalUpdateRetriesAfterAConcurrentWrite() {
+        Item existing = new Item(1L, "Old", "desc", "NEW", "email@test.com");
+        Item updated = new Item(1L, "Updated", "desc", "NEW", "email@test.com");
+        when(repository.findById(1L)).thenReturn(Optional.of(existing));
+        when(repository.save(updated))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L))
+                .thenReturn(updated);
+
+        assertTrue(service.updateItem(1L, updated, null).isPresent());
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testItemsETag_ChangesOnlyOnWrites() {
+        when(repository.findAllProjected()).thenReturn(List.of());
+        when(repository.save(any(Item.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(repository.deleteAllByIdIn(List.of(1L))).thenReturn(0);
+        String initial = service.itemsETag();
+
+        service.findAll();
+        service.deleteItem(1L);
+        assertEquals(initial, service.itemsETag());
+
+        service.save(new ItemDTO(null, "New", "desc", "NEW", "email@test.com"));
+        assertNotEquals(initial, service.itemsETag());
+    }
+
+    @Test
+    void testWritesPublishChangesInOrder() throws Exception {
+        Item existing = new Item(1L, "Test", "desc", "NEW", "email@test.com");
+        when(repository.save(any(Item.class))).thenAnswer(inv -> {
+            Item saved = inv.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId(2L);
+            }
+            return saved;
+        });
+        when(repository.findById(1L)).thenReturn(Optional.of(existing));
+        when(repository.deleteAllByIdIn(List.of(1L))).thenReturn(1);
+        String start = changeFeed.position();
+
+        service.save(new ItemDTO(null, "New", "desc", "NEW", "email@test.com"));
+        service.updateItem(1L, new Item(null, "Renamed", "desc", "NEW", "email@test.com"), null);
+        service.deleteItem(1L);
+
+        List<ItemChangeDTO> changes = changeFeed.read(start, 10, Duration.ZERO).getChanges();
+        assertEquals(List.of(ItemChangeDTO.Type.CREATED, ItemChangeDTO.Type.UPDATED, ItemChangeDTO.Type.DELETED),
+                changes.stream().map(ItemChangeDTO::getType).toList());
+        assertEquals(2L, changes.get(0).getId());
+        assertEquals("Renamed", changes.get(1).getItem().getName());
+        assertEquals(changeFeed.position(), changes.get(2).getPosition());
+        assertEquals(changeFeed.position(), service.itemsETag());
+    }
+
+    @Test
+    void testSaveAll_InsertsInJdbcBatchesAndKeepsOrder() throws Exception {
+        AtomicLong ids = new AtomicLong();
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Item> batch = inv.getArgument(0);
+            batch.forEach(item -> item.setId(ids.incrementAndGet()));
+            return batch;
+        });
+        List<ItemDTO> items = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            items.add(new ItemDTO(null, "Item" + i, "desc", "NEW", "email@test.com"));
+        }
+        String start = changeFeed.position();
+
+        List<ItemDTO> saved = service.saveAll(items);
+
+        assertEquals(60, saved.size());
+        assertEquals(1L, saved.get(0).getId());
+        assertEquals("Item59", saved.get(59).getName());
+        verify(repository, times(2)).saveAll(anyList());
+        verify(entityManager, times(2)).flush();
+        assertEquals(60, changeFeed.read(start, 500, Duration.ZERO).getChanges().size());
+    }
+
     @Test
     void testUpdateItem_NotFound() {
         when(repository.findById(99L)).thenReturn(Optional.empty());
 
-        Optional<ItemDTO> result = service.updateItem(99L, new Item());
+        Optional<ItemDTO> result = service.updateItem(99L, new Item(), null);
 
         assertTrue(result.isEmpty());
     }
@@ -98,6 +333,85 @@ class ItemServiceTest {
         verify(repository).deleteById(1L);
     }
 
+    @Test
+    void testDeleteItem_SingleStatement() {
+        when(repository.deleteAllByIdIn(List.of(1L))).thenReturn(1);
+        when(repository.deleteAllByIdIn(List.of(2L))).thenReturn(0);
+
+        assertTrue(service.deleteItem(1L));
+        assertFalse(service.deleteItem(2L));
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void testUpdateItems_AppliesOnlyProvidedFields() {
+        Item existing = new Item(1L, "Old", "desc", "NEW", "email@test.com");
+        when(repository.findAllById(List.of(1L, 2L))).thenReturn(List.of(existing));
+        cacheManager.getCache("items").put(1L, new ItemDTO());
+
+        List<ItemOperationResultDTO> results = service.updateItems(List.of(
+                new ItemDTO(1L, null, null, "DONE", null, null),
+                new ItemDTO(2L, "Missing", null, null, null, null),
+                new ItemDTO(null, "No id", null, null, null, null)));
+
+        assertEquals(List.of(Outcome.UPDATED, Outcome.NOT_FOUND, Outcome.INVALID),
+                results.stream().map(ItemOperationResultDTO::getOutcome).toList());
+        assertEquals("Old", existing.getName());
+        assertEquals("DONE", existing.getStatus());
+        assertEquals("DONE", results.get(0).getItem().getStatus());
+        assertNull(cacheManager.getCache("items").get(1L));
+        verify(repository, times(1)).findAllById(any());
+        verify(repository, never()).save(any(Item.class));
+        verify(repository).flush();
+    }
+
+    @Test
+    void testUpdateItems_ReportsConflictForStaleVersions() {
+        Item existing = new Item(1L, "Old", "desc", "NEW", "email@test.com");
+        existing.setVersion(2);
+        when(repository.findAllById(List.of(1L))).thenReturn(List.of(existing));
+        ItemDTO stale = new ItemDTO(1L, "New", null, null, null, null);
+        stale.setVersion(1L);
+
+        List<ItemOperationResultDTO> results = service.updateItems(List.of(stale));
+
+        assertEquals(Outcome.CONFLICT, results.get(0).getOutcome());
+        assertEquals(2L, results.get(0).getItem().getVersion());
+        assertEquals("Old", existing.getName());
+    }
+
+    @Test
+    void testDeleteItems_ReportsPerItemOutcome() {
+        when(repository.findExistingIds(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+        List<ItemOperationResultDTO> results = service.deleteItems(List.of(1L, 2L, 3L));
+
+        assertEquals(List.of(Outcome.DELETED, Outcome.NOT_FOUND, Outcome.DELETED),
+                results.stream().map(ItemOperationResultDTO::getOutcome).toList());
+        verify(repository).deleteAllByIdIn(Set.of(1L, 3L));
+    }
+
+    @Test
+    void testDeleteItems_EvictsCachedItemsOnlyAfterCommit() {
+        when(repository.findExistingIds(List.of(1L))).thenReturn(List.of(1L));
+        cacheManager.getCache("items").put(1L, Optional.of(new ItemDTO(1L, "Test", "desc", "NEW", "email@test.com")));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.deleteItems(List.of(1L));
+            // A findById before the commit would still read the row, so the entry must survive until then
+            assertNotNull(cacheManager.getCache("items").get(1L));
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(cacheManager.getCache("items").get(1L));
+    }
+
     @Test
     void testSaveItemRepeatable() {
         ItemDTO dto = ItemDTO.builder()
@@ -109,16 +423,25 @@ class ItemServiceTest {
 
         ItemRepeatableDTO repeatableDTO = new ItemRepeatableDTO(dto, 3);
 
-        when(modelMapper.map(eq(dto), eq(Item.class))).thenReturn(Item.builder()
-                .name("Repeat")
-                .description("Test")
-                .email("r@example.com")
-                .status("NEW")
-                .build());
-
         service.saveItemRepeatable(repeatableDTO);
 
-        verify(repository, times(3)).save(any(Item.class));
+        ArgumentCaptor<List<Item>> batches = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(1)).saveAll(batches.capture());
+        assertEquals(3, batches.getValue().size());
+        verify(repository, never()).save(any(Item.class));
+    }
+
+    @Test
+    void testSaveItemRepeatable_FlushesInChunks() {
+        ItemDTO dto = ItemDTO.builder().name("Repeat").status("NEW").build();
+
+        service.saveItemRepeatable(new ItemRepeatableDTO(dto, 120));
+
+        ArgumentCaptor<List<Item>> batches = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(3)).saveAll(batches.capture());
+        assertEquals(List.of(50, 50, 20), batches.getAllValues().stream().map(List::size).toList());
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
     }
 
     @Test
@@ -128,37 +451,45 @@ class ItemServiceTest {
         assertTrue(service.existsById(1L));
     }
 
+    // Stubs the keyset ID queries of a processing run as if the table held exactly these IDs
+    private void givenItemIds(List<Long> ids) {
+        List<Long> sorted = ids.stream().sorted().toList();
+        when(repository.findMaxId()).thenReturn(sorted.isEmpty() ? Optional.empty() : Optional.of(sorted.get(sorted.size() - 1)));
+        when(repository.countIdsUpTo(anyLong())).thenReturn((long) sorted.size());
+        when(repository.findIdsAfter(anyLong(), anyLong(), any())).thenAnswer(inv -> {
+            long afterId = inv.getArgument(0);
+            Limit limit = inv.getArgument(2);
+            return sorted.stream().filter(id -> id > afterId).limit(limit.max()).toList();
+        });
+        when(repository.findModifiedAfter(any(), anyLong(), anyLong(), any())).thenReturn(List.of());
+        when(repository.findIdsNotModifiedSince(any(), any())).thenAnswer(inv -> new ArrayList<>(inv.<Collection<Long>>getArgument(0)));
+    }
+
     @Test
     void testProcessItemsAsync() throws Exception {
         List<Long> ids = new ArrayList<>();
-        List<Item> items = new ArrayList<>();
+        Map<Long, Item> items = new HashMap<>();
         for (long i = 1; i <= 10; i++) {
             ids.add(i);
-            Item item = Item.builder()
+            items.put(i, Item.builder()
                     .id(i)
                     .name("Item" + i)
                     .description("Desc" + i)
                     .status("NEW")
                     .email("item" + i + "@example.com")
-                    .build();
-            items.add(item);
-
-            when(repository.findById(i)).thenReturn(Optional.of(item));
-            when(repository.save(any(Item.class))).thenAnswer(inv -> inv.getArgument(0));
-            when(modelMapper.map(eq(item), eq(ItemDTO.class))).thenAnswer(inv -> {
-                Item it = inv.getArgument(0);
-                return ItemDTO.builder()
-                        .id(it.getId())
-                        .name(it.getName())
-                        .description(it.getDescription())
-                        .status("PROCESSED")
-                        .email(it.getEmail())
-                        .processedBy("MockThread")
-                        .build();
-            });
+                    .build());
         }
 
-        when(repository.findAllIds()).thenReturn(ids);
+        givenItemIds(ids);
+        when(repository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Item> partition = new ArrayList<>();
+            for (Long id : (Iterable<Long>) inv.getArgument(0)) {
+                partition.add(items.get(id));
+            }
+            return partition;
+        });
+        String start = changeFeed.position();
+
         CompletableFuture<List<ItemDTO>> future = service.processItemsAsync();
         List<ItemDTO> processed = future.get(); // Wait for async task to complete
         assertEquals(10, processed.size());
@@ -167,6 +498,357 @@ class ItemServiceTest {
             assertTrue(dto.getProcessedBy() != null && !dto.getProcessedBy().isEmpty());
         }
 
-        verify(repository, times(10)).save(any(Item.class));
+        verify(itemProcessor, times(10)).process(any(Item.class));
+        ArgumentCaptor<List<Item>> updated = ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeastOnce()).updateStatusIfUnchanged(updated.capture(), eq("PROCESSED"));
+        assertEquals(10, updated.getAllValues().stream().mapToInt(List::size).sum());
+        verify(repository, never()).findById(anyLong());
+        verify(repository, never()).save(any(Item.class));
+        verify(repository, never()).findAllIds();
+
+        assertEquals(10.0, meterRegistry.counter("items.processing.items", "outcome", "processed").count());
+        assertTrue(meterRegistry.timer("items.processing.chunk").count() > 0);
+        assertTrue(changeFeed.read(start, 100, Duration.ZERO).getChanges().stream()
+                .allMatch(change -> change.getType() == ItemChangeDTO.Type.PROCESSED));
+        assertEquals(10, changeFeed.read(start, 100, Duration.ZERO).getChanges().size());
+    }
+
+    @Test
+    void testProcessItemsAsync_ReturnsOnlyTheRunsOwnResults() throws Exception {
+        givenItemIds(List.of(1L));
+        when(repository.findAllById(anyIterable())).thenReturn(List.of(new Item(1L, "Test", "desc", "NEW", "email@test.com")));
+
+        service.processItemsAsync().get();
+        service.resetProcessingWatermark();
+        List<ItemDTO> second = service.processItemsAsync().get();
+
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    void testSubmitProcessingJob_RetainsBoundedResults() throws Exception {
+        ReflectionTestUtils.setField(service, "maxRetainedResults", 2);
+        List<Long> ids = List.of(1L, 2L, 3L, 4L, 5L);
+        givenItemIds(ids);
+        when(repository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Item> chunk = new ArrayList<>();
+            for (Long id : (Iterable<Long>) inv.getArgument(0)) {
+                chunk.add(new Item(id, "Item" + id, "desc", "NEW", "item@test.com"));
+            }
+            return chunk;
+        });
+
+        String jobId = service.submitProcessingJob().orElseThrow().getJobId();
+        ProcessingJobDTO job = service.getProcessingJob(jobId, 0, 10).orElseThrow();
+        for (int i = 0; i < 100 && "RUNNING".equals(job.getStatus()); i++) {
+            Thread.sleep(20);
+            job = service.getProcessingJob(jobId, 0, 10).orElseThrow();
+        }
+
+        assertEquals(5, job.getProcessed());
+        assertEquals(2, job.getRetainedResults());
+        assertEquals(3, job.getDroppedResults());
+        assertEquals(2, job.getResults().size());
+    }
+
+    @Test
+    void testProcessItemsAsync_SecondRunOnlyPicksUpChangedItems() throws Exception {
+        Item item = new Item(1L, "Test", "desc", "NEW", "email@test.com");
+        givenItemIds(List.of(1L));
+        when(repository.findAllById(anyIterable())).thenReturn(List.of(item));
+
+        service.processItemsAsync().get();
+        service.processItemsAsync().get();
+
+        // One page of IDs and the empty page that ends the first run
+        verify(repository, times(2)).findIdsAfter(anyLong(), anyLong(), any());
+        verify(repository, times(1)).findModifiedAfter(any(), anyLong(), anyLong(), any());
+        verify(repository, times(1)).updateStatusIfUnchanged(any(), eq("PROCESSED"));
+    }
+
+    @Test
+    void testProcessItemsAsync_PicksUpRowsStampedBeforeTheRunButCommittedAfterIt() throws Exception {
+        ReflectionTestUtils.setField(service, "watermarkOverlapMillis", 0L);
+        Item item = new Item(1L, "Test", "desc", "NEW", "email@test.com");
+        givenItemIds(List.of(1L));
+        when(repository.findAllById(anyIterable())).thenReturn(List.of(item));
+
+        Instant stamped;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // A writer flushes the row, then a whole run starts and finishes before the writer commits
+            openWrites.onWrite();
+            stamped = Instant.now();
+            Thread.sleep(10);
+            service.processItemsAsync().get();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        service.processItemsAsync().get();
+
+        ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).countIdsModifiedSince(since.capture(), anyLong());
+        assertTrue(since.getValue().isBefore(stamped), "the committed row is older than the watermark");
+    }
+
+    @Test
+    void testProcessItemsAsync_FailedRunKeepsFullScan() throws Exception {
+        givenItemIds(List.of(1L));
+        doThrow(new RuntimeException("db down")).when(repository).findIdsAfter(anyLong(), anyLong(), any());
+
+        assertThrows(Exception.class, () -> service.processItemsAsync().get());
+        assertThrows(Exception.class, () -> service.processItemsAsync().get());
+
+        verify(repository, times(2)).countIdsUpTo(anyLong());
+        verify(repository, never()).countIdsModifiedSince(any(), anyLong());
+    }
+
+    @Test
+    void testProcessItemsAsync_EvictsProcessedItemsFromCache() throws Exception {
+        Item item = new Item(1L, "Test", "desc", "NEW", "email@test.com");
+        cacheManager.getCache("items").put(1L, new ItemDTO(1L, "Test", "desc", "NEW", null, "email@test.com"));
+        givenItemIds(List.of(1L));
+        when(repository.findAllById(anyIterable())).thenReturn(List.of(item));
+
+        service.processItemsAsync().get();
+
+        assertNull(cacheManager.getCache("items").get(1L));
+    }
+
+    @Test
+    void testSubmitProcessingJob() throws Exception {
+        Item item = new Item(1L, "Test", "desc", "NEW", "email@test.com");
+        givenItemIds(List.of(1L));
+        when(repository.findAllById(anyIterable())).thenReturn(List.of(item));
+
+        ProcessingJobDTO submitted = service.submitProcessingJob().orElseThrow();
+        assertNotNull(submitted.getJobId());
+
+        ProcessingJobDTO job = service.getProcessingJob(submitted.getJobId(), 0, 10).orElseThrow();
+        for (int i = 0; i < 100 && "RUNNING".equals(job.getStatus()); i++) {
+            Thread.sleep(20);
+            job = service.getProcessingJob(submitted.getJobId(), 0, 10).orElseThrow();
+        }
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(1, job.getTotal());
+        assertEquals(1, job.getProcessed());
+        assertEquals(0, job.getFailed());
+        assertEquals(1, job.getResults().size());
+    }
+
+    @Test
+    void testSubmitProcessingJob_DeadLettersChunkWhenDatabaseFails() throws Exception {
+        givenItemIds(List.of(1L, 2L));
+        when(repository.findAllById(anyIterable())).thenThrow(new RuntimeException("db down"));
+
+        String jobId = service.submitProcessingJob().orElseThrow().getJobId();
+
+        ProcessingJobDTO job = service.getProcessingJob(jobId, 0, 10).orElseThrow();
+        for (int i = 0; i < 100 && "RUNNING".equals(job.getStatus()); i++) {
+            Thread.sleep(20);
+            job = service.getProcessingJob(jobId, 0, 10).orElseThrow();
+        }
+
+        assertEquals("PARTIAL", job.getStatus());
+        assertEquals(2, job.getFailed());
+        assertEquals(0, job.getProcessed());
+        assertEquals(2, job.getDeadLetters().size());
+        assertEquals("db down", job.getDeadLetters().get(0).getReason());
+        assertEquals(2.0, meterRegistry.counter("items.processing.items", "outcome", "failed").count());
+        assertEquals(1, meterRegistry.timer("items.processing.run", "outcome", "partial").count());
+    }
+
+    @Test
+    void testProcessItemsAsync_OneBadItemDoesNotFailTheRun() throws Exception {
+        List<Long> ids = List.of(1L, 2L, 3L);
+        givenItemIds(ids);
+        when(repository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Item> chunk = new ArrayList<>();
+            for (Long id : (Iterable<Long>) inv.getArgument(0)) {
+                chunk.add(new Item(id, "Item" + id, "desc", "NEW", "item@test.com"));
+            }
+            return chunk;
+        });
+        doThrow(new IllegalArgumentException("bad row")).when(itemProcessor).process(argThat(item -> item.getId() == 2L));
+
+        List<ItemDTO> processed = service.processItemsAsync().get();
+
+        assertEquals(List.of(1L, 3L), processed.stream().map(ItemDTO::getId).sorted().toList());
+    }
+
+    @Test
+    void testProcessItemsAsync_KeepsAtMostMaxRetainedResults() throws Exception {
+        ReflectionTestUtils.setField(service, "maxRetainedResults", 2);
+        givenItemIds(List.of(1L, 2L, 3L));
+        when(repository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Item> chunk = new ArrayList<>();
+            for (Long id : (Iterable<Long>) inv.getArgument(0)) {
+                chunk.add(new Item(id, "Item" + id, "desc", "NEW", "item@test.com"));
+            }
+            return chunk;
+        });
+
+        assertEquals(2, service.processItemsAsync().get().size());
+        service.resetProcessingWatermark();
+        ProcessingJob job = service.processItemsJobAsync().get();
+        assertEquals(3, job.getProcessed());
+        assertEquals(2, job.getResults().size());
+        assertEquals(1, job.getDroppedResults());
+    }
+
+    @Test
+    void testProcessItemsAsync_DeadLettersItemsThatTimeOut() throws Exception {
+        ReflectionTestUtils.setField(service, "itemTimeoutMillis", 50L);
+        givenItemIds(List.of(1L, 2L));
+        when(repository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Item> chunk = new ArrayList<>();
+            for (Long id : (Iterable<Long>) inv.getArgument(0)) {
+                chunk.add(new Item(id, "Item" + id, "desc", "NEW", "item@test.com"));
+            }
+            return chunk;
+        });
+        doAnswer(inv -> {
+            Thread.sleep(5_000);
+            return null;
+        }).when(itemProcessor).process(argThat(item -> item.getId() == 1L));
+
+        List<ItemDTO> processed = service.processItemsAsync().get();
+
+        assertEquals(List.of(2L), processed.stream().map(ItemDTO::getId).toList());
+        assertEquals(1.0, meterRegistry.counter("items.processing.items", "outcome", "failed").count());
+    }
+
+    @Test
+    void testProcessItemsAsync_ShuttingTheExecutorDownInterruptsTheRun() throws Exception {
+        ReflectionTestUtils.setField(service, "workers", 1);
+        ReflectionTestUtils.setField(service, "itemTimeoutMillis", 0L);
+        givenItemIds(LongStream.rangeClosed(1, 40).boxed().toList());
+        when(repository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Item> chunk = new ArrayList<>();
+            for (Long id : (Iterable<Long>) inv.getArgument(0)) {
+                chunk.add(new Item(id, "Item" + id, "desc", "NEW", "item@test.com"));
+            }
+            return chunk;
+        });
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(inv -> {
+            started.countDown();
+            new CountDownLatch(1).await();
+            return null;
+        }).when(itemProcessor).process(argThat(item -> item.getId() == 1L));
+
+        CompletableFuture<List<ItemDTO>> run = service.processItemsAsync();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> ProcessingExecutorConfig.shutdown(executor, 100));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> run.get(5, TimeUnit.SECONDS));
+        assertEquals("Processing was interrupted", failure.getCause().getMessage());
+        assertTrue(executor.isTerminated());
+        verify(repository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void testProcessItemsAsync_StopProcessingLetsTheExecutorCloseAfterTheCurrentChunk() throws Exception {
+        ReflectionTestUtils.setField(service, "workers", 1);
+        ReflectionTestUtils.setField(service, "itemTimeoutMillis", 0L);
+        givenItemIds(LongStream.rangeClosed(1, 40).boxed().toList());
+        when(repository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Item> chunk = new ArrayList<>();
+            for (Long id : (Iterable<Long>) inv.getArgument(0)) {
+                chunk.add(new Item(id, "Item" + id, "desc", "NEW", "item@test.com"));
+            }
+            return chunk;
+        });
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(itemProcessor).process(argThat(item -> item.getId() == 1L));
+
+        CompletableFuture<List<ItemDTO>> run = service.processItemsAsync();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        service.stopProcessing();
+        release.countDown();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> executor.close());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> run.get(5, TimeUnit.SECONDS));
+        assertEquals("Processing was stopped", failure.getCause().getMessage());
+        verify(repository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void testSubmitProcessingJob_SkipsItemsChangedByAnotherWriter() throws Exception {
+        givenItemIds(List.of(1L, 2L));
+        when(repository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Item> chunk = new ArrayList<>();
+            for (Long id : (Iterable<Long>) inv.getArgument(0)) {
+                chunk.add(new Item(id, "Item" + id, "desc", "NEW", "item@test.com"));
+            }
+            return chunk;
+        });
+        when(repository.updateStatusIfUnchanged(any(), eq("PROCESSED"))).thenAnswer(inv -> {
+            List<Item> chunk = inv.getArgument(0);
+            return chunk.stream().map(Item::getId).filter(id -> id == 2L).toList();
+        });
+
+        String jobId = service.submitProcessingJob().orElseThrow().getJobId();
+        ProcessingJobDTO job = service.getProcessingJob(jobId, 0, 10).orElseThrow();
+        for (int i = 0; i < 100 && "RUNNING".equals(job.getStatus()); i++) {
+            Thread.sleep(20);
+            job = service.getProcessingJob(jobId, 0, 10).orElseThrow();
+        }
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(1, job.getProcessed());
+        assertEquals(1, job.getSkipped());
+        assertEquals(0, job.getFailed());
+        assertEquals(1L, job.getResults().get(0).getId());
+        assertEquals(1L, job.getResults().get(0).getVersion());
+        assertEquals(1.0, meterRegistry.counter("items.processing.items", "outcome", "skipped").count());
+    }
+
+    @Test
+    void testProcessItemsAsync_RetriesTransientDatabaseErrors() throws Exception {
+        Item item = new Item(1L, "Test", "desc", "NEW", "email@test.com");
+        givenItemIds(List.of(1L));
+        when(repository.findAllById(anyIterable()))
+                .thenThrow(new QueryTimeoutException("lock timeout"))
+                .thenReturn(List.of(item));
+
+        List<ItemDTO> processed = service.processItemsAsync().get();
+
+        assertEquals(1, processed.size());
+        verify(repository, times(2)).findAllById(anyIterable());
+    }
+
+    @Test
+    void testProcessItemsAsync_DeadLettersAreRetriedByTheNextIncrementalRun() throws Exception {
+        givenItemIds(List.of(1L, 2L));
+        when(repository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Item> chunk = new ArrayList<>();
+            for (Long id : (Iterable<Long>) inv.getArgument(0)) {
+                chunk.add(new Item(id, "Item" + id, "desc", "NEW", "item@test.com"));
+            }
+            return chunk;
+        });
+        doThrow(new IllegalStateException("flaky")).doNothing()
+                .when(itemProcessor).process(argThat(item -> item.getId() == 2L));
+
+        assertEquals(1, service.processItemsAsync().get().size());
+        List<ItemDTO> second = service.processItemsAsync().get();
+        List<ItemDTO> third = service.processItemsAsync().get();
+
+        assertEquals(List.of(2L), second.stream().map(ItemDTO::getId).toList());
+        assertTrue(third.isEmpty());
+    }
+
+    @Test
+    void testGetProcessingJob_Unknown() {
+        assertTrue(service.getProcessingJob("missing", 0, 10).isEmpty());
     }
 }
@@ -0,0 +1,54 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.DAO.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemSnapshotLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(ItemSnapshotLoader.class)
+class ItemSnapshotLoaderTest {
+
+    @Autowired
+    private ItemSnapshotLoader loader;
+
+    @Autowired
+    private ItemRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void shouldRoundTripItemsThroughCsvSnapshot() {
+        Item first = repository.save(new Item(null, "First", "desc, with comma", "NEW", "first@test.com"));
+        Item second = repository.save(new Item(null, "Second", null, "DONE", "second@test.com"));
+        entityManager.flush();
+        Path snapshot = tempDir.resolve("items.csv");
+
+        assertEquals(2, loader.write(snapshot));
+        repository.deleteAllInBatch();
+        assertEquals(2, loader.load(snapshot));
+        entityManager.clear();
+
+        Item loaded = repository.findById(first.getId()).orElseThrow();
+        assertEquals("desc, with comma", loaded.getDescription());
+        assertNotNull(loaded.getLastModified());
+        assertNull(repository.findById(second.getId()).orElseThrow().getDescription());
+
+        // The sequence was moved past the loaded IDs
+        Item fresh = repository.save(new Item(null, "Fresh", "desc", "NEW", "fresh@test.com"));
+        assertTrue(fresh.getId() > second.getId());
+    }
+}
@@ -0,0 +1,90 @@
+package com.siemens.internship;
+
+import com.siemens.internship.service.ItemSnapshotRestorer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSnapshotRestorerTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private Path source;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        source = tempDir.resolve("source/items");
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:file:" + source);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+            statement.execute("CREATE INDEX idx_item_name ON item (name)");
+            statement.execute("INSERT INTO item SELECT X, 'Item ' || X FROM SYSTEM_RANGE(1, 3)");
+            statement.execute("BACKUP TO '" + tempDir.resolve("items.zip") + "'");
+        }
+    }
+
+    @Test
+    void shouldRestoreBackupZipBeforeThePoolOpens() throws SQLException {
+        Path restored = tempDir.resolve("restored/items");
+
+        restore(tempDir.resolve("items.zip"), restored);
+
+        assertEquals(3, countItems(restored));
+    }
+
+    @Test
+    void shouldCopyDatabaseFile() throws SQLException {
+        Path restored = tempDir.resolve("restored/items");
+
+        restore(source.resolveSibling("items.mv.db"), restored);
+
+        assertEquals(3, countItems(restored));
+    }
+
+    @Test
+    void shouldKeepAnExistingDatabase() throws Exception {
+        Path existing = tempDir.resolve("existing/items");
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:file:" + existing);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+        }
+
+        restore(tempDir.resolve("items.zip"), existing);
+
+        assertEquals(0, countItems(existing));
+    }
+
+    @Test
+    void shouldRejectDatabaseSnapshotForInMemoryDatabase() {
+        ItemSnapshotRestorer restorer = new ItemSnapshotRestorer(tempDir.resolve("items.zip").toString(), "jdbc:h2:mem:testdb");
+
+        assertThrows(IllegalStateException.class, () -> restorer.postProcessBeforeInitialization(new DriverManagerDataSource(), "dataSource"));
+        assertFalse(Files.exists(tempDir.resolve("testdb.mv.db")));
+    }
+
+    private void restore(Path snapshot, Path database) {
+        new ItemSnapshotRestorer(snapshot.toString(), "jdbc:h2:file:" + database + ";DB_CLOSE_ON_EXIT=FALSE")
+                .postProcessBeforeInitialization(new DriverManagerDataSource(), "dataSource");
+    }
+
+    private static long countItems(Path database) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:file:" + database);
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM item")) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+}
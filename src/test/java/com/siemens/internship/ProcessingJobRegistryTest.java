@@ -0,0 +1,72 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.service.InMemoryResultSink;
+import com.siemens.internship.service.ProcessingJob;
+import com.siemens.internship.service.ProcessingJobRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessingJobRegistryTest {
+
+    private ProcessingJobRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ProcessingJobRegistry();
+        ReflectionTestUtils.setField(registry, "maxJobs", 2);
+    }
+
+    @Test
+    void shouldEvictOldestFinishedJob_WhenFull() {
+        ProcessingJob first = registry.register(new InMemoryResultSink(10)).orElseThrow();
+        ProcessingJob second = registry.register(new InMemoryResultSink(10)).orElseThrow();
+        first.finish(null);
+
+        ProcessingJob third = registry.register(new InMemoryResultSink(10)).orElseThrow();
+
+        assertTrue(registry.find(first.getId()).isEmpty());
+        assertTrue(registry.find(second.getId()).isPresent());
+        assertTrue(registry.find(third.getId()).isPresent());
+    }
+
+    @Test
+    void shouldRejectJob_WhenAllJobsAreRunning() {
+        registry.register(new InMemoryResultSink(10));
+        registry.register(new InMemoryResultSink(10));
+
+        Optional<ProcessingJob> rejected = registry.register(new InMemoryResultSink(10));
+
+        assertTrue(rejected.isEmpty());
+    }
+
+    @Test
+    void shouldKeepFirstOutcome_WhenFinishedTwice() {
+        ProcessingJob job = registry.register(new InMemoryResultSink(10)).orElseThrow();
+
+        job.finish(null);
+        job.finish(new RuntimeException("late failure"));
+
+        assertEquals(ProcessingJob.Status.COMPLETED, job.getStatus());
+        assertNull(job.getError());
+    }
+
+    @Test
+    void shouldReleaseResults_WhenJobIsEvicted() {
+        InMemoryResultSink results = new InMemoryResultSink(10);
+        ProcessingJob first = registry.register(results).orElseThrow();
+        first.recordProcessed(List.of(new ItemDTO()));
+        first.finish(null);
+        registry.register(new InMemoryResultSink(10));
+
+        registry.register(new InMemoryResultSink(10));
+
+        assertEquals(0, results.retained());
+    }
+}
@@ -0,0 +1,57 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.DTO.ItemDTO;
+import com.siemens.internship.service.InMemoryResultSink;
+import com.siemens.internship.service.SpillingResultSink;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessingResultSinkTest {
+
+    private static List<ItemDTO> items(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(id -> new ItemDTO(id, "Item" + id, "desc", "PROCESSED", "Thread-1", "item@test.com"))
+                .toList();
+    }
+
+    @Test
+    void inMemorySinkShouldKeepOnlyItsCapacity() {
+        InMemoryResultSink sink = new InMemoryResultSink(3);
+
+        sink.accept(items(1, 2));
+        sink.accept(items(3, 5));
+
+        assertEquals(3, sink.retained());
+        assertEquals(2, sink.dropped());
+        assertEquals(List.of(2L, 3L), sink.read(1, 5).stream().map(ItemDTO::getId).toList());
+    }
+
+    @Test
+    void spillingSinkShouldReadAcrossMemoryAndFile() {
+        try (SpillingResultSink sink = new SpillingResultSink(2)) {
+            sink.accept(items(1, 3));
+            sink.accept(items(4, 6));
+
+            assertEquals(6, sink.retained());
+            assertEquals(0, sink.dropped());
+            assertEquals(List.of(2L, 3L, 4L), sink.read(1, 3).stream().map(ItemDTO::getId).toList());
+            assertEquals(List.of(5L, 6L), sink.read(4, 10).stream().map(ItemDTO::getId).toList());
+            assertEquals("Thread-1", sink.read(5, 1).get(0).getProcessedBy());
+        }
+    }
+
+    @Test
+    void spillingSinkShouldReleaseEverythingOnClose() {
+        SpillingResultSink sink = new SpillingResultSink(1);
+        sink.accept(items(1, 3));
+
+        sink.close();
+
+        assertEquals(0, sink.retained());
+        assertTrue(sink.read(0, 10).isEmpty());
+    }
+}
@@ -0,0 +1,52 @@
+package com.siemens.internship;
+
+import com.siemens.internship.service.TransientRetry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransientRetryTest {
+
+    private final TransientRetry retry = new TransientRetry(3, 1);
+
+    @Test
+    void shouldRetryTransientErrorsUntilTheCallSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry.call(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("deadlock");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(CannotAcquireLockException.class, () -> retry.call(() -> {
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("deadlock");
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void shouldNotRetryPermanentErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(DataIntegrityViolationException.class, () -> retry.call(() -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("duplicate key");
+        }));
+        assertEquals(1, attempts.get());
+    }
+}